@@ -2,9 +2,20 @@ package avlTree3;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implements an AVL tree, one of the first self-balancing trees, invented by Adelson-Velsky and Landis.  
@@ -12,8 +23,12 @@ import java.util.NoSuchElementException;
  * and remove methods entail two passes through the tree; one to put/remove, the second to rebalance the tree.  
  * Red-black trees and others take fewer operations to achieve balance.
  * 
- * This version uses the method checkCompliance for put and remove operations.  It's a convoluted diagnostic that should be commented
- * out for production use.
+ * This version uses the method checkCompliance for put and remove operations.  It's a convoluted diagnostic which walks the whole
+ * tree, so it only runs when assertions are enabled, and can be switched off entirely for production use with AVLTree(false).
+ * 
+ * Lookups are loops, and put, remove, removeMin and removeMax record their path on an explicit stack for the rebalancing pass
+ * back up, so none of them recurse.  The bulk operations (keys, values, fromSorted, split, join and the set operations) still
+ * recurse, but only to the height of the tree.
  * 
  * Based on article and code by Marcelo Silva found at: https://algs4.cs.princeton.edu/99misc/AVLTreeST.java.html
  * @author John McCullock
@@ -24,10 +39,28 @@ import java.util.NoSuchElementException;
  */
 public class AVLTree <K extends Comparable<K>, V>
 {
+	/*
+	 * Below this many nodes, union, intersect and difference stop forking and finish sequentially.
+	 */
+	private static final int PARALLEL_THRESHOLD = 4096;
+	
+	private enum SetOperation{UNION, INTERSECT, DIFFERENCE};
+	
 	private Node mRoot = null;
+	private boolean mCheckCompliance = true;
 	
 	public AVLTree() { return; }
 	
+	/**
+	 * @param checkCompliance false to skip the full-tree compliance check after each put and remove, even when assertions
+	 * are enabled.
+	 */
+	public AVLTree(boolean checkCompliance)
+	{
+		this.mCheckCompliance = checkCompliance;
+		return;
+	}
+	
 	public void put(K key, V value)
 	{
 		if (key == null) throw new IllegalArgumentException("key parameter cannot be null");
@@ -35,28 +68,71 @@ public class AVLTree <K extends Comparable<K>, V>
             this.remove(key);
             return;
         }
-        this.mRoot = put(this.mRoot, key, value);
-        assert this.checkCompliance();
+		if(this.mRoot == null){
+			this.mRoot = new Node(key, value, 0, 1);
+			return;
+		}
+		Node[] path = this.newPath();
+		boolean[] wentLeft = new boolean[path.length];
+		int depth = 0;
+		Node n = this.mRoot;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				n.value = value;
+				return;
+			}
+			path[depth] = n;
+			wentLeft[depth] = cmp < 0;
+			depth++;
+			n = cmp < 0 ? n.left : n.right;
+		}
+		this.mRoot = this.rebalance(path, wentLeft, depth, new Node(key, value, 0, 1));
+		assert !this.mCheckCompliance || this.checkCompliance();
 		return;
 	}
 	
-	private Node put(Node root, K key, V value)
+	/*
+	 * Holds the nodes visited on the way down, so the way back up needs no recursion.  A path can't be longer than the
+	 * number of levels in the tree.
+	 */
+	private Node[] newPath()
 	{
-		if(root == null){
-			return new Node(key, value, 0, 1);
-		}
-		int cmp = key.compareTo(root.key);
-		if(cmp < 0){
-			root.left = put(root.left, key, value);
-		}else if (cmp > 0){
-			root.right = put(root.right, key, value);
-		}else{
-			root.value = value;
-			return root;
+		return this.newPath(this.mRoot);
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Node[] newPath(Node root)
+	{
+		return (Node[])new AVLTree.Node[this.height(root) + 2];
+	}
+	
+	/*
+	 * Links child under the last node of the path, then walks back to the root updating size and height and rebalancing
+	 * each node.  Returns the new root.
+	 */
+	private Node rebalance(Node[] path, boolean[] wentLeft, int depth, Node child)
+	{
+		for(int i = depth - 1; i >= 0; i--)
+		{
+			Node parent = path[i];
+			if(wentLeft[i]){
+				parent.left = child;
+			}else{
+				parent.right = child;
+			}
+			this.update(parent);
+			child = this.balance(parent);
 		}
-		root.size = 1 + this.size(root.left) + this.size(root.right);
-		root.height = 1 + Math.max(height(root.left), height(root.right));
-		return balance(root);
+		return child;
+	}
+	
+	private void update(Node n)
+	{
+		n.size = 1 + this.size(n.left) + this.size(n.right);
+		n.height = 1 + Math.max(this.height(n.left), this.height(n.right));
+		return;
 	}
 	
 	public V get(K key)
@@ -73,17 +149,19 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node get(Node root, K key)
 	{
-		if(root == null){
-			return null;
-		}
-		int cmp = key.compareTo(root.key);
-		if(cmp < 0){
-			return this.get(root.left, key);
-		}else if(cmp > 0){
-			return this.get(root.right, key);
-		}else{
-			return root;
+		Node n = root;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp < 0){
+				n = n.left;
+			}else if(cmp > 0){
+				n = n.right;
+			}else{
+				return n;
+			}
 		}
+		return null;
 	}
 	
 	public boolean contains(K key)
@@ -99,32 +177,52 @@ public class AVLTree <K extends Comparable<K>, V>
 		if(!this.contains(key)){
 			return;
 		}
-		this.mRoot = this.remove(this.mRoot, key);
-		assert this.checkCompliance();
-	}
-	
-	private Node remove(Node root, K key)
-	{
-		int cmp = key.compareTo(root.key);
-		if(cmp < 0){
-			root.left = this.remove(root.left, key);
-		}else if(cmp > 0){
-			root.right = this.remove(root.right, key);
+		Node[] path = this.newPath();
+		boolean[] wentLeft = new boolean[path.length];
+		int depth = 0;
+		Node n = this.mRoot;
+		while(true)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				break;
+			}
+			path[depth] = n;
+			wentLeft[depth] = cmp < 0;
+			depth++;
+			n = cmp < 0 ? n.left : n.right;
+		}
+		Node replacement = null;
+		if(n.left == null){
+			replacement = n.right;
+		}else if(n.right == null){
+			replacement = n.left;
 		}else{
-			if(root.left == null){
-				return root.right;
-			}else if(root.right == null){
-				return root.left;
-			}else{
-				Node temp = root;
-				root = this.min(temp.right);
-				root.right = this.removeMin(temp.right);
-				root.left = temp.left;
+			// Take the successor's place: unlink the minimum of the right subtree and put it where n was.
+			int start = depth;
+			Node m = n.right;
+			while(m.left != null)
+			{
+				path[depth] = m;
+				wentLeft[depth] = true;
+				depth++;
+				m = m.left;
+			}
+			Node right = m.right;
+			for(int i = depth - 1; i >= start; i--)
+			{
+				path[i].left = right;
+				this.update(path[i]);
+				right = this.balance(path[i]);
 			}
+			depth = start;
+			m.right = right;
+			m.left = n.left;
+			this.update(m);
+			replacement = this.balance(m);
 		}
-		root.size = 1 + this.size(root.left) + this.size(root.right);
-		root.height = 1 + Math.max(this.height(root.left), this.height(root.right));
-		return this.balance(root);
+		this.mRoot = this.rebalance(path, wentLeft, depth, replacement);
+		assert !this.mCheckCompliance || this.checkCompliance();
 	}
 	
 	public void removeMin()
@@ -133,19 +231,24 @@ public class AVLTree <K extends Comparable<K>, V>
 			throw new NoSuchElementException("AVLTree is empty.");
 		}
 		this.mRoot = this.removeMin(this.mRoot);
-		assert this.checkCompliance();
+		assert !this.mCheckCompliance || this.checkCompliance();
 		return;
 	}
 	
 	private Node removeMin(Node root)
 	{
-		if(root.left == null){
-			return root.right;
+		Node[] path = this.newPath(root);
+		boolean[] wentLeft = new boolean[path.length];
+		int depth = 0;
+		Node n = root;
+		while(n.left != null)
+		{
+			path[depth] = n;
+			wentLeft[depth] = true;
+			depth++;
+			n = n.left;
 		}
-		root.left = this.removeMin(root.left);
-		root.size = 1 + this.size(root.left) + this.size(root.right);
-		root.height = 1 + Math.max(this.height(root.left), this.height(root.right));
-		return this.balance(root);
+		return this.rebalance(path, wentLeft, depth, n.right);
 	}
 	
 	public void removeMax()
@@ -154,18 +257,298 @@ public class AVLTree <K extends Comparable<K>, V>
 			throw new NoSuchElementException("AVLTree is empty.");
 		}
 		this.mRoot = this.removeMax(this.mRoot);
-		assert this.checkCompliance();
+		assert !this.mCheckCompliance || this.checkCompliance();
 	}
 	
 	private Node removeMax(Node root)
 	{
-		if(root.right == null){
-			return root.left;
+		Node[] path = this.newPath(root);
+		boolean[] wentLeft = new boolean[path.length];
+		int depth = 0;
+		Node n = root;
+		while(n.right != null)
+		{
+			path[depth] = n;
+			wentLeft[depth] = false;
+			depth++;
+			n = n.right;
+		}
+		return this.rebalance(path, wentLeft, depth, n.left);
+	}
+	
+	/**
+	 * Builds a perfectly balanced tree from keys in strictly ascending order in O(n) time, with no rotations and no
+	 * compliance checks during the build.
+	 * @param keys in strictly ascending order.
+	 * @param values matching keys by position.
+	 * @return AVLTree
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static <K extends Comparable<K>, V> AVLTree<K, V> fromSorted(List<K> keys, List<V> values)
+	{
+		if(keys == null || values == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(keys.size() != values.size()){
+			throw new IllegalArgumentException("keys and values must be the same size.");
+		}
+		AVLTree<K, V> tree = new AVLTree<K, V>();
+		AVLTree<K, V>.Node[] nodes = (AVLTree<K, V>.Node[])new AVLTree.Node[keys.size()];
+		Iterator<K> keyIt = keys.iterator();
+		Iterator<V> valueIt = values.iterator();
+		K previous = null;
+		for(int i = 0; i < nodes.length; i++)
+		{
+			K key = keyIt.next();
+			V value = valueIt.next();
+			if(key == null || value == null){
+				throw new IllegalArgumentException("Keys and values cannot be null.");
+			}
+			if(previous != null && previous.compareTo(key) >= 0){
+				throw new IllegalArgumentException("Keys must be in strictly ascending order.");
+			}
+			nodes[i] = tree.new Node(key, value, 0, 1);
+			previous = key;
+		}
+		tree.mRoot = tree.build(nodes, 0, nodes.length - 1);
+		assert !tree.mCheckCompliance || tree.checkCompliance();
+		return tree;
+	}
+	
+	/**
+	 * Relinks the existing nodes into a perfectly balanced tree of minimum height in O(n) time, without allocating nodes.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void rebuild()
+	{
+		Node[] nodes = (Node[])new AVLTree.Node[this.size()];
+		EntryIterator it = new EntryIterator(null, null, false);
+		for(int i = 0; i < nodes.length; i++)
+		{
+			nodes[i] = it.nextNode();
+		}
+		this.mRoot = this.build(nodes, 0, nodes.length - 1);
+		assert !this.mCheckCompliance || this.checkCompliance();
+		return;
+	}
+	
+	/*
+	 * Links nodes[low..high] into a balanced subtree around the middle node.  Both halves differ in size by at most one, so
+	 * every node is AVL-compliant.
+	 */
+	private Node build(Node[] nodes, int low, int high)
+	{
+		if(low > high){
+			return null;
+		}
+		int mid = (low + high) >>> 1;
+		Node n = nodes[mid];
+		n.left = this.build(nodes, low, mid - 1);
+		n.right = this.build(nodes, mid + 1, high);
+		this.update(n);
+		return n;
+	}
+	
+	/**
+	 * Splits this tree in O(log n) time.  Keys less than key stay in this tree; keys greater than or equal to key are moved
+	 * to the returned tree.  No nodes are copied.
+	 * @param key
+	 * @return AVLTree holding the upper part.
+	 */
+	public AVLTree<K, V> split(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		Split s = this.split(this.mRoot, key);
+		AVLTree<K, V> upper = new AVLTree<K, V>(this.mCheckCompliance);
+		this.mRoot = s.left;
+		upper.mRoot = s.mid == null ? s.right : this.join(null, s.mid, s.right);
+		assert !this.mCheckCompliance || (this.checkCompliance() && upper.checkCompliance());
+		return upper;
+	}
+	
+	/**
+	 * Joins two trees and one new entry in O(|height(left) - height(right)|) time.  Every key in left must be less than key,
+	 * and every key in right greater.  The nodes of left and right are moved into the result, leaving both empty.
+	 * @param left
+	 * @param key
+	 * @param value
+	 * @param right
+	 * @return AVLTree
+	 */
+	public static <K extends Comparable<K>, V> AVLTree<K, V> join(AVLTree<K, V> left, K key, V value, AVLTree<K, V> right)
+	{
+		if(left == null || key == null || value == null || right == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(left == right){
+			throw new IllegalArgumentException("Cannot join a tree with itself.");
+		}
+		if(!left.isEmpty() && left.max().compareTo(key) >= 0){
+			throw new IllegalArgumentException("Keys in left must be less than key.");
+		}
+		if(!right.isEmpty() && right.min().compareTo(key) <= 0){
+			throw new IllegalArgumentException("Keys in right must be greater than key.");
 		}
-		root.right = this.removeMax(root.right);
-		root.size = 1 + this.size(root.left) + this.size(root.right);
-		root.height = 1 + Math.max(this.height(root.left), this.height(root.right));
-		return this.balance(root);
+		AVLTree<K, V> result = new AVLTree<K, V>(left.mCheckCompliance);
+		result.mRoot = result.join(left.mRoot, result.new Node(key, value, 0, 1), right.mRoot);
+		left.mRoot = null;
+		right.mRoot = null;
+		assert !result.mCheckCompliance || result.checkCompliance();
+		return result;
+	}
+	
+	/**
+	 * Adds every entry of other to this tree, replacing values for keys found in both.  Uses the join-based algorithm of
+	 * Blelloch, Ferizovic and Sun ("Just Join for Parallel Ordered Sets"), which runs in O(m log(n/m + 1)) time for trees of
+	 * sizes m <= n, and runs its independent halves as fork-join tasks.  The nodes of other are moved into this tree, leaving
+	 * other empty.
+	 * @param other
+	 */
+	public void union(AVLTree<K, V> other)
+	{
+		this.setOperation(SetOperation.UNION, other);
+		return;
+	}
+	
+	/**
+	 * Keeps only the entries of this tree whose keys are also in other.  Same algorithm and costs as union.  Leaves other
+	 * empty.
+	 * @param other
+	 */
+	public void intersect(AVLTree<K, V> other)
+	{
+		this.setOperation(SetOperation.INTERSECT, other);
+		return;
+	}
+	
+	/**
+	 * Removes the entries of this tree whose keys are in other.  Same algorithm and costs as union.  Leaves other empty.
+	 * @param other
+	 */
+	public void difference(AVLTree<K, V> other)
+	{
+		this.setOperation(SetOperation.DIFFERENCE, other);
+		return;
+	}
+	
+	private void setOperation(SetOperation op, AVLTree<K, V> other)
+	{
+		if(other == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		if(other == this){
+			throw new IllegalArgumentException("Argument cannot be this tree.");
+		}
+		if(this.size() + other.size() > PARALLEL_THRESHOLD){
+			this.mRoot = ForkJoinPool.commonPool().invoke(new SetTask(op, this.mRoot, other.mRoot));
+		}else{
+			this.mRoot = this.setOperation(op, this.mRoot, other.mRoot);
+		}
+		other.mRoot = null;
+		assert !this.mCheckCompliance || this.checkCompliance();
+		return;
+	}
+	
+	private Node setOperation(SetOperation op, Node a, Node b)
+	{
+		if(a == null){
+			return op == SetOperation.UNION ? b : null;
+		}
+		if(b == null){
+			return op == SetOperation.INTERSECT ? null : a;
+		}
+		boolean parallel = a.size + b.size > PARALLEL_THRESHOLD;
+		// Difference splits this tree around other's root; the others split other around this tree's root.
+		Node pivot = op == SetOperation.DIFFERENCE ? b : a;
+		Node pivotLeft = pivot.left;
+		Node pivotRight = pivot.right;
+		Split s = this.split(op == SetOperation.DIFFERENCE ? a : b, pivot.key);
+		Node left = null;
+		Node right = null;
+		if(parallel){
+			SetTask task = op == SetOperation.DIFFERENCE ? new SetTask(op, s.left, pivotLeft) : new SetTask(op, pivotLeft, s.left);
+			task.fork();
+			right = op == SetOperation.DIFFERENCE ? this.setOperation(op, s.right, pivotRight) : this.setOperation(op, pivotRight, s.right);
+			left = task.join();
+		}else{
+			left = op == SetOperation.DIFFERENCE ? this.setOperation(op, s.left, pivotLeft) : this.setOperation(op, pivotLeft, s.left);
+			right = op == SetOperation.DIFFERENCE ? this.setOperation(op, s.right, pivotRight) : this.setOperation(op, pivotRight, s.right);
+		}
+		if(op == SetOperation.UNION){
+			if(s.mid != null){
+				a.value = s.mid.value;
+			}
+			return this.join(left, a, right);
+		}
+		if(op == SetOperation.INTERSECT && s.mid != null){
+			return this.join(left, a, right);
+		}
+		return this.join(left, right);
+	}
+	
+	/*
+	 * Splits root around key into the keys below it, the node holding key (if any), and the keys above it.
+	 */
+	private Split split(Node root, K key)
+	{
+		if(root == null){
+			return new Split(null, null, null);
+		}
+		Node left = root.left;
+		Node right = root.right;
+		int cmp = key.compareTo(root.key);
+		if(cmp == 0){
+			return new Split(left, root, right);
+		}
+		if(cmp < 0){
+			Split s = this.split(left, key);
+			s.right = this.join(s.right, root, right);
+			return s;
+		}
+		Split s = this.split(right, key);
+		s.left = this.join(left, root, s.left);
+		return s;
+	}
+	
+	/*
+	 * Makes mid the parent of left and right, where every key in left is less than mid's and every key in right is greater.
+	 * Descends the spine of the taller tree until the heights are within one, links there, and rebalances on the way back.
+	 */
+	private Node join(Node left, Node mid, Node right)
+	{
+		int hl = this.height(left);
+		int hr = this.height(right);
+		if(hl > hr + 1){
+			left.right = this.join(left.right, mid, right);
+			this.update(left);
+			return this.balance(left);
+		}
+		if(hr > hl + 1){
+			right.left = this.join(left, mid, right.left);
+			this.update(right);
+			return this.balance(right);
+		}
+		mid.left = left;
+		mid.right = right;
+		this.update(mid);
+		return mid;
+	}
+	
+	/*
+	 * Joins two trees without a middle entry by taking the largest node of left as the middle.
+	 */
+	private Node join(Node left, Node right)
+	{
+		if(left == null){
+			return right;
+		}
+		if(right == null){
+			return left;
+		}
+		Node mid = this.max(left);
+		return this.join(this.removeMax(left), mid, right);
 	}
 	
 	public int height()
@@ -248,17 +631,21 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private int rank(K key, Node root)
 	{
-		if(root == null){
-			return 0;
-		}
-		int cmp = key.compareTo(root.key);
-		if(cmp < 0){
-			return this.rank(key, root.left);
-		}else if(cmp > 0){
-			return 1 + this.size(root.left) + this.rank(key, root.right);
-		}else{
-			return this.size(root.left);
+		int rank = 0;
+		Node n = root;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp < 0){
+				n = n.left;
+			}else if(cmp > 0){
+				rank += 1 + this.size(n.left);
+				n = n.right;
+			}else{
+				return rank + this.size(n.left);
+			}
 		}
+		return rank;
 	}
 	
 	public K select(int k)
@@ -272,17 +659,20 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node select(Node root, int k)
 	{
-		if(root == null){
-			return null;
-		}
-		int t = this.size(root.left);
-		if(t > k){
-			return this.select(root.left,  k);
-		}else if(t < k){
-			return this.select(root.right, k - t - 1);
-		}else{
-			return root;
+		Node n = root;
+		while(n != null)
+		{
+			int t = this.size(n.left);
+			if(t > k){
+				n = n.left;
+			}else if(t < k){
+				k = k - t - 1;
+				n = n.right;
+			}else{
+				return n;
+			}
 		}
+		return null;
 	}
 	
 	public List<K> keys()
@@ -335,6 +725,239 @@ public class AVLTree <K extends Comparable<K>, V>
 		return;
 	}
 	
+	/**
+	 * Returns the number of keys between low and high, inclusive, in O(log n) time using the subtree sizes.
+	 * @param low
+	 * @param high
+	 * @return int
+	 */
+	public int size(K low, K high)
+	{
+		if(low == null){
+			throw new IllegalArgumentException("First argument cannot be null.");
+		}
+		if(high == null){
+			throw new IllegalArgumentException("Second argument cannot be null.");
+		}
+		if(low.compareTo(high) > 0){
+			return 0;
+		}
+		int count = this.rank(high) - this.rank(low);
+		return this.contains(high) ? count + 1 : count;
+	}
+	
+	/**
+	 * Unlike keys and values, the iterators below copy nothing.  Each one seeks to its first entry in O(log n) time, then
+	 * advances in O(1) amortized time using a stack no deeper than the tree.  Entries are the tree's own nodes, so setValue
+	 * writes through.  The tree must not be structurally modified while an iterator is in use.
+	 */
+	public Iterator<Map.Entry<K, V>> entryIterator()
+	{
+		return new EntryIterator(null, null, false);
+	}
+	
+	/**
+	 * Iterates in ascending order over the entries with keys between low and high, inclusive.
+	 * @param low
+	 * @param high
+	 * @return Iterator
+	 */
+	public Iterator<Map.Entry<K, V>> entryIterator(K low, K high)
+	{
+		if(low == null){
+			throw new IllegalArgumentException("First argument cannot be null.");
+		}
+		if(high == null){
+			throw new IllegalArgumentException("Second argument cannot be null.");
+		}
+		return new EntryIterator(low, high, false);
+	}
+	
+	public Iterator<Map.Entry<K, V>> descendingEntryIterator()
+	{
+		return new EntryIterator(null, null, true);
+	}
+	
+	/**
+	 * Iterates in descending order over the entries with keys between low and high, inclusive.
+	 * @param low
+	 * @param high
+	 * @return Iterator
+	 */
+	public Iterator<Map.Entry<K, V>> descendingEntryIterator(K low, K high)
+	{
+		if(low == null){
+			throw new IllegalArgumentException("First argument cannot be null.");
+		}
+		if(high == null){
+			throw new IllegalArgumentException("Second argument cannot be null.");
+		}
+		return new EntryIterator(low, high, true);
+	}
+	
+	/*
+	 * Each key and value iterator below matches the entry iterator of the same name and arguments.
+	 */
+	public Iterator<K> keyIterator()
+	{
+		return this.keysOf(this.entryIterator());
+	}
+	
+	public Iterator<K> keyIterator(K low, K high)
+	{
+		return this.keysOf(this.entryIterator(low, high));
+	}
+	
+	public Iterator<K> descendingKeyIterator()
+	{
+		return this.keysOf(this.descendingEntryIterator());
+	}
+	
+	public Iterator<K> descendingKeyIterator(K low, K high)
+	{
+		return this.keysOf(this.descendingEntryIterator(low, high));
+	}
+	
+	public Iterator<V> valueIterator()
+	{
+		return this.valuesOf(this.entryIterator());
+	}
+	
+	public Iterator<V> valueIterator(K low, K high)
+	{
+		return this.valuesOf(this.entryIterator(low, high));
+	}
+	
+	public Iterator<V> descendingValueIterator()
+	{
+		return this.valuesOf(this.descendingEntryIterator());
+	}
+	
+	public Iterator<V> descendingValueIterator(K low, K high)
+	{
+		return this.valuesOf(this.descendingEntryIterator(low, high));
+	}
+	
+	private Iterator<K> keysOf(final Iterator<Map.Entry<K, V>> it)
+	{
+		return new Iterator<K>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public K next()
+			{
+				return it.next().getKey();
+			}
+		};
+	}
+	
+	private Iterator<V> valuesOf(final Iterator<Map.Entry<K, V>> it)
+	{
+		return new Iterator<V>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public V next()
+			{
+				return it.next().getValue();
+			}
+		};
+	}
+	
+	/**
+	 * Returns an ordered Spliterator over the entries with keys between low and high, inclusive.  Its size is exact, taken
+	 * from size(low, high).
+	 * @param low
+	 * @param high
+	 * @return Spliterator
+	 */
+	public Spliterator<Map.Entry<K, V>> entrySpliterator(K low, K high)
+	{
+		return Spliterators.spliterator(this.entryIterator(low, high), this.size(low, high), 
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
+	/**
+	 * Returns a Spliterator over all entries which splits by rank, using the subtree sizes, so both halves of every split
+	 * are exactly sized.  This is what lets the parallel streams below divide the work evenly across fork-join threads.
+	 * @return Spliterator
+	 */
+	public Spliterator<Map.Entry<K, V>> entrySpliterator()
+	{
+		return new RankSpliterator<Map.Entry<K, V>>(0, this.size(), Spliterator.DISTINCT, new Function<Node, Map.Entry<K, V>>()
+		{
+			@Override
+			public Map.Entry<K, V> apply(Node n)
+			{
+				return n;
+			}
+		});
+	}
+	
+	public Stream<Map.Entry<K, V>> stream()
+	{
+		return StreamSupport.stream(this.entrySpliterator(), false);
+	}
+	
+	public Stream<Map.Entry<K, V>> parallelStream()
+	{
+		return StreamSupport.stream(this.entrySpliterator(), true);
+	}
+	
+	public Stream<K> keyStream()
+	{
+		return StreamSupport.stream(this.keySpliterator(), false);
+	}
+	
+	public Stream<K> parallelKeyStream()
+	{
+		return StreamSupport.stream(this.keySpliterator(), true);
+	}
+	
+	public Stream<V> valueStream()
+	{
+		return StreamSupport.stream(this.valueSpliterator(), false);
+	}
+	
+	public Stream<V> parallelValueStream()
+	{
+		return StreamSupport.stream(this.valueSpliterator(), true);
+	}
+	
+	private Spliterator<K> keySpliterator()
+	{
+		return new RankSpliterator<K>(0, this.size(), Spliterator.DISTINCT | Spliterator.SORTED, new Function<Node, K>()
+		{
+			@Override
+			public K apply(Node n)
+			{
+				return n.key;
+			}
+		});
+	}
+	
+	private Spliterator<V> valueSpliterator()
+	{
+		return new RankSpliterator<V>(0, this.size(), 0, new Function<Node, V>()
+		{
+			@Override
+			public V apply(Node n)
+			{
+				return n.value;
+			}
+		});
+	}
+	
 	public Collection<V> values()
 	{
 		ArrayList<V> col = new ArrayList<V>();
@@ -367,18 +990,22 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node floor(Node root, K key)
 	{
-		if(root == null){
-			return null;
-		}
-		int cmp = key.compareTo(root.key);
-		if(cmp == 0){
-			return root;
-		}
-		if(cmp < 0){
-			return this.floor(root.left, key);
+		Node best = null;
+		Node n = root;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				return n;
+			}
+			if(cmp < 0){
+				n = n.left;
+			}else{
+				best = n;
+				n = n.right;
+			}
 		}
-		Node n = this.floor(root.right, key);
-		return n != null ? n : root;
+		return best;
 	}
 	
 	public K ceil(K key)
@@ -395,18 +1022,22 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node ceil(Node root, K key)
 	{
-		if(root == null){
-			return null;
-		}
-		int cmp = key.compareTo(root.key);
-		if(cmp == 0){
-			return root;
-		}
-		if(cmp > 0){
-			return this.ceil(root.right, key);
+		Node best = null;
+		Node n = root;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				return n;
+			}
+			if(cmp > 0){
+				n = n.right;
+			}else{
+				best = n;
+				n = n.left;
+			}
 		}
-		Node n = this.ceil(root.left, key);
-		return n != null ? n : root;
+		return best;
 	}
 	
 	public K min()
@@ -419,10 +1050,11 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node min(Node root)
 	{
-		if(root.left == null){
-			return root;
+		while(root.left != null)
+		{
+			root = root.left;
 		}
-		return this.min(root.left);
+		return root;
 	}
 	
 	public K max()
@@ -435,10 +1067,11 @@ public class AVLTree <K extends Comparable<K>, V>
 	
 	private Node max(Node root)
 	{
-		if(root.right == null){
-			return root;
+		while(root.right != null)
+		{
+			root = root.right;
 		}
-		return this.max(root.right);
+		return root;
 	}
 	
 	private boolean checkCompliance()
@@ -515,7 +1148,229 @@ public class AVLTree <K extends Comparable<K>, V>
 		return true;
 	}
 	
-	private class Node
+	/*
+	 * In-order walk over an explicit stack.  Ascending, the stack holds the nodes whose left subtrees have been handled but
+	 * which haven't been returned yet; descending is the mirror image.  A null bound means unbounded.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V>>
+	{
+		private Node[] mStack = null;
+		private int mTop = 0;
+		private K mLow = null;
+		private K mHigh = null;
+		private boolean mDescending = false;
+		
+		public EntryIterator(K low, K high, boolean descending)
+		{
+			this.mStack = newPath();
+			this.mLow = low;
+			this.mHigh = high;
+			this.mDescending = descending;
+			Node n = mRoot;
+			while(n != null)
+			{
+				if(descending){
+					if(high == null || n.key.compareTo(high) <= 0){
+						this.mStack[this.mTop++] = n;
+						n = n.right;
+					}else{
+						n = n.left;
+					}
+				}else{
+					if(low == null || n.key.compareTo(low) >= 0){
+						this.mStack[this.mTop++] = n;
+						n = n.left;
+					}else{
+						n = n.right;
+					}
+				}
+			}
+			return;
+		}
+		
+		/*
+		 * Starts an ascending, unbounded walk at the entry of the given rank.
+		 */
+		public EntryIterator(int rank)
+		{
+			this.mStack = newPath();
+			Node n = mRoot;
+			while(n != null)
+			{
+				int t = size(n.left);
+				if(rank < t){
+					this.mStack[this.mTop++] = n;
+					n = n.left;
+				}else if(rank > t){
+					rank = rank - t - 1;
+					n = n.right;
+				}else{
+					this.mStack[this.mTop++] = n;
+					break;
+				}
+			}
+			return;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if(this.mTop == 0){
+				return false;
+			}
+			K key = this.mStack[this.mTop - 1].key;
+			if(this.mDescending){
+				return this.mLow == null || key.compareTo(this.mLow) >= 0;
+			}
+			return this.mHigh == null || key.compareTo(this.mHigh) <= 0;
+		}
+		
+		@Override
+		public Map.Entry<K, V> next()
+		{
+			if(!this.hasNext()){
+				throw new NoSuchElementException();
+			}
+			return this.nextNode();
+		}
+		
+		public Node nextNode()
+		{
+			Node result = this.mStack[--this.mTop];
+			Node n = this.mDescending ? result.left : result.right;
+			while(n != null)
+			{
+				this.mStack[this.mTop++] = n;
+				n = this.mDescending ? n.right : n.left;
+			}
+			return result;
+		}
+	}
+	
+	/*
+	 * Covers the entries ranked from mLow up to, but not including, mHigh.  Splitting halves the rank range in O(1), and
+	 * traversal seeks to the first rank in O(log n) by descending on subtree sizes.
+	 */
+	private class RankSpliterator<T> implements Spliterator<T>
+	{
+		private int mLow = 0;
+		private int mHigh = 0;
+		private int mCharacteristics = 0;
+		private Function<Node, T> mExtractor = null;
+		private EntryIterator mIterator = null;
+		
+		public RankSpliterator(int low, int high, int characteristics, Function<Node, T> extractor)
+		{
+			this.mLow = low;
+			this.mHigh = high;
+			this.mCharacteristics = characteristics | Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+			this.mExtractor = extractor;
+			return;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action)
+		{
+			if(this.mLow >= this.mHigh){
+				return false;
+			}
+			if(this.mIterator == null){
+				this.mIterator = new EntryIterator(this.mLow);
+			}
+			this.mLow++;
+			action.accept(this.mExtractor.apply(this.mIterator.nextNode()));
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action)
+		{
+			if(this.mLow >= this.mHigh){
+				return;
+			}
+			if(this.mIterator == null){
+				this.mIterator = new EntryIterator(this.mLow);
+			}
+			for(; this.mLow < this.mHigh; this.mLow++)
+			{
+				action.accept(this.mExtractor.apply(this.mIterator.nextNode()));
+			}
+			return;
+		}
+		
+		@Override
+		public Spliterator<T> trySplit()
+		{
+			int mid = (this.mLow + this.mHigh) >>> 1;
+			if(mid <= this.mLow){
+				return null;
+			}
+			Spliterator<T> prefix = new RankSpliterator<T>(this.mLow, mid, this.mCharacteristics, this.mExtractor);
+			this.mLow = mid;
+			this.mIterator = null;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize()
+		{
+			return this.mHigh - this.mLow;
+		}
+		
+		@Override
+		public int characteristics()
+		{
+			return this.mCharacteristics;
+		}
+		
+		@Override
+		public Comparator<? super T> getComparator()
+		{
+			if((this.mCharacteristics & Spliterator.SORTED) != 0){
+				return null;
+			}
+			throw new IllegalStateException();
+		}
+	}
+	
+	private class Split
+	{
+		public Node left = null;
+		public Node mid = null;
+		public Node right = null;
+		
+		public Split(Node left, Node mid, Node right)
+		{
+			this.left = left;
+			this.mid = mid;
+			this.right = right;
+			return;
+		}
+	}
+	
+	private class SetTask extends RecursiveTask<Node>
+	{
+		private static final long serialVersionUID = 1L;
+		private SetOperation mOperation = null;
+		private Node mA = null;
+		private Node mB = null;
+		
+		public SetTask(SetOperation op, Node a, Node b)
+		{
+			this.mOperation = op;
+			this.mA = a;
+			this.mB = b;
+			return;
+		}
+		
+		@Override
+		protected Node compute()
+		{
+			return setOperation(this.mOperation, this.mA, this.mB);
+		}
+	}
+	
+	private class Node implements Map.Entry<K, V>
 	{
 		public K key = null;
 		public V value = null;
@@ -532,5 +1387,50 @@ public class AVLTree <K extends Comparable<K>, V>
 			this.size = size;
 			return;
 		}
+		
+		@Override
+		public K getKey()
+		{
+			return this.key;
+		}
+		
+		@Override
+		public V getValue()
+		{
+			return this.value;
+		}
+		
+		@Override
+		public V setValue(V value)
+		{
+			if(value == null){
+				throw new IllegalArgumentException("Argument cannot be null.");
+			}
+			V old = this.value;
+			this.value = value;
+			return old;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+			return this.key.equals(e.getKey()) && this.value.equals(e.getValue());
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return this.key.hashCode() ^ this.value.hashCode();
+		}
+		
+		@Override
+		public String toString()
+		{
+			return this.key + "=" + this.value;
+		}
 	}
 }
@@ -0,0 +1,233 @@
+package splayTree2;
+
+import java.util.List;
+
+/**
+ * Ordered map which splays on every read while accesses are skewed, and switches to a balanced tree that reads don't
+ * restructure when they aren't.
+ *
+ * Splaying pays off when a small set of keys takes most of the accesses, since those keys stay near the root.  When accesses
+ * are spread evenly, every lookup still rotates its key to the root, and the tree ends up deeper on average than a balanced
+ * one.  This class watches for that and switches modes:
+ *
+ * While splaying, the tree's profile is checked every WINDOW operations.  If the average splay depth is greater than
+ * log2(n), about what a balanced tree would need, the tree is rebuilt perfectly balanced and its splay probability set to 0,
+ * so reads only peek and leave it balanced.
+ *
+ * While balanced, nothing splays: puts and removes descend and add or unlink a single node, as in a plain binary search
+ * tree.  Random writes keep such a tree about 1.4 log2(n) deep on average.  Each write going deeper than 2 log2(n) is charged
+ * the extra depth, and once the charges add up to n the tree is rebuilt, so the O(n) rebuild is paid for by at least as much
+ * wasted descent.  Uniform writes seldom pay anything, while sorted ones, which grow a single long path, soon trigger it.
+ * Reads can't show skew through depth, so they are sampled into a small direct-mapped table of recent keys.  If a large
+ * share of reads find their key already in its slot, a small hot set has formed, and everything starts splaying again.
+ *
+ * Rebuilding relinks the existing nodes in O(n) time, and going back to splaying takes none.  Trees smaller than MIN_SIZE
+ * never switch, since either mode is shallow at that size.  Values cannot be null.
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-02-06
+ */
+public class AdaptiveSplayTree<K extends Comparable<K>, V>
+{
+	private static final int WINDOW = 4096;
+	private static final int MIN_SIZE = 256;
+	/*
+	 * Must be a power of two.
+	 */
+	private static final int RECENT_SIZE = 1024;
+	private static final double REPEAT_THRESHOLD = 0.25;
+	
+	private SplayTree<K, V> mTree = new SplayTree<K, V>();
+	private boolean mSplaying = true;
+	private Object[] mRecent = new Object[RECENT_SIZE];
+	private int mOperations = 0;
+	private int mRepeats = 0;
+	private int mSwitches = 0;
+	/*
+	 * While balanced, the depth a write may reach without charge, and the charges since the last rebuild.
+	 */
+	private int mDepthLimit = 0;
+	private long mExcessDepth = 0L;
+	
+	public AdaptiveSplayTree()
+	{
+		this.mTree.setProfiling(true);
+		return;
+	}
+	
+	public V get(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		V value = this.mTree.get(key);
+		if(!this.mSplaying){
+			this.sample(key);
+		}
+		this.afterOperation();
+		return value;
+	}
+	
+	public boolean containsKey(K key)
+	{
+		return this.get(key) != null;
+	}
+	
+	public void put(K key, V value)
+	{
+		if(key == null || value == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(this.mSplaying){
+			this.mTree.putOrReplace(key, value);
+		}else{
+			this.charge(this.mTree.putByDescent(key, value));
+		}
+		this.afterOperation();
+		return;
+	}
+	
+	public void remove(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		if(this.mSplaying){
+			this.mTree.remove(key);
+		}else{
+			this.charge(this.mTree.removeByDescent(key));
+		}
+		this.afterOperation();
+		return;
+	}
+	
+	public int size()
+	{
+		return this.mTree.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mTree.isEmpty();
+	}
+	
+	public void clear()
+	{
+		this.mTree.clear();
+		this.resetWindow();
+		return;
+	}
+	
+	public List<K> keyList()
+	{
+		return this.mTree.keyList();
+	}
+	
+	/**
+	 * Returns true while reads splay, false while the tree is kept balanced.
+	 * @return boolean
+	 */
+	public boolean isSplaying()
+	{
+		return this.mSplaying;
+	}
+	
+	/**
+	 * Returns the number of times the tree has switched between splaying and balanced mode.
+	 * @return int
+	 */
+	public int getSwitchCount()
+	{
+		return this.mSwitches;
+	}
+	
+	/*
+	 * Direct-mapped: each key has one slot, and a read counts as a repeat if its key is the last one seen in that slot.
+	 */
+	private void sample(K key)
+	{
+		int h = key.hashCode();
+		int slot = (h ^ (h >>> 16)) & (RECENT_SIZE - 1);
+		if(key.equals(this.mRecent[slot])){
+			this.mRepeats++;
+		}else{
+			this.mRecent[slot] = key;
+		}
+		return;
+	}
+	
+	private void charge(int depth)
+	{
+		if(depth <= this.mDepthLimit){
+			return;
+		}
+		this.mExcessDepth += depth - this.mDepthLimit;
+		int size = this.size();
+		if(size >= MIN_SIZE && this.mExcessDepth >= size){
+			this.rebuildBalanced();
+		}
+		return;
+	}
+	
+	private void afterOperation()
+	{
+		if(++this.mOperations < WINDOW){
+			return;
+		}
+		int size = this.size();
+		if(size >= MIN_SIZE){
+			double balancedDepth = Math.log(size) / Math.log(2.0);
+			if(this.mSplaying){
+				if(this.mTree.getProfile().getAverageDepth() > balancedDepth){
+					this.rebuildBalanced();
+				}
+			}else if((double)this.mRepeats / this.mOperations > REPEAT_THRESHOLD){
+				this.switchToSplay();
+			}
+		}
+		this.mDepthLimit = this.depthLimit(size);
+		this.resetWindow();
+		return;
+	}
+	
+	private void resetWindow()
+	{
+		this.mOperations = 0;
+		this.mRepeats = 0;
+		this.mTree.getProfile().reset();
+		return;
+	}
+	
+	/*
+	 * Also used while already balanced, when writes have made the tree too deep.
+	 */
+	private void rebuildBalanced()
+	{
+		this.mTree.rebuild();
+		this.mTree.setSplayProbability(0.0);
+		this.mDepthLimit = this.depthLimit(this.size());
+		this.mExcessDepth = 0L;
+		if(this.mSplaying){
+			this.mSplaying = false;
+			this.mRecent = new Object[RECENT_SIZE];
+			this.mSwitches++;
+		}
+		return;
+	}
+	
+	private int depthLimit(int size)
+	{
+		return (int)(2.0 * Math.log(Math.max(size, 2)) / Math.log(2.0));
+	}
+	
+	private void switchToSplay()
+	{
+		this.mTree.setSplayProbability(1.0);
+		this.mSplaying = true;
+		this.mSwitches++;
+		return;
+	}
+}
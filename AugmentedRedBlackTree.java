@@ -0,0 +1,179 @@
+package redBlackTree1;
+
+/**
+ * Red-black tree in which every node also holds an aggregate of its whole subtree: a count, a sum, the largest endpoint of a
+ * set of intervals, or anything else which can be built from a single entry and combined associatively.  Aggregates are
+ * recomputed for the nodes each rotation moves and along the path from each inserted, changed or removed entry to the root,
+ * so they stay current at the cost of O(log n) extra work per update.
+ *
+ * With aggregates in place, range queries which would otherwise scan keyList() run in O(log n): aggregate(low, high) combines
+ * whole subtrees along the two boundary paths instead of visiting each entry.  IntervalTree and OrderStatisticTree build
+ * their queries on the same aggregates.
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @param <A> aggregate type.
+ * @version 1.0 2019-01-30
+ */
+public class AugmentedRedBlackTree<K extends Comparable<K>, V, A> extends RedBlackTree<K, V>
+{
+	private Aggregator<K, V, A> mAggregator = null;
+	
+	public AugmentedRedBlackTree(Aggregator<K, V, A> aggregator)
+	{
+		this(aggregator, false, false);
+		return;
+	}
+	
+	/**
+	 * @param aggregator
+	 * @param useDebugMode
+	 * @param useTopDown true to rebalance on the way down during put and remove, in a single pass.
+	 */
+	public AugmentedRedBlackTree(Aggregator<K, V, A> aggregator, boolean useDebugMode, boolean useTopDown)
+	{
+		super(useDebugMode, useTopDown, true);
+		if(aggregator == null){
+			throw new IllegalArgumentException("aggregator parameter cannot be null.");
+		}
+		this.mAggregator = aggregator;
+		return;
+	}
+	
+	/**
+	 * Returns the aggregate of every entry in the tree, or null if the tree is empty.
+	 * @return A
+	 */
+	public A getAggregate()
+	{
+		return this.aggregateOf(this.getRootNode());
+	}
+	
+	/**
+	 * Returns the aggregate of all entries with keys from low to high inclusive, or null if there are none.  Entries are
+	 * combined in ascending key order.
+	 * @param low
+	 * @param high
+	 * @return A
+	 */
+	public A aggregate(K low, K high)
+	{
+		if(low == null || high == null){
+			throw new IllegalArgumentException("Key arguments cannot be null.");
+		}
+		if(low.compareTo(high) > 0){
+			return null;
+		}
+		// Find the highest node inside the range.  Everything in range lies in its subtree.
+		Node<K, V> split = this.getRootNode();
+		while(split != null)
+		{
+			if(high.compareTo(split.key) < 0){
+				split = split.left;
+			}else if(low.compareTo(split.key) > 0){
+				split = split.right;
+			}else{
+				break;
+			}
+		}
+		if(split == null){
+			return null;
+		}
+		// Down the left boundary, each node at or above low brings its right subtree with it, ahead of what's found so far.
+		A before = null;
+		Node<K, V> n = split.left;
+		while(n != null)
+		{
+			if(low.compareTo(n.key) <= 0){
+				before = this.combine(this.combine(this.lift(n), this.aggregateOf(n.right)), before);
+				n = n.left;
+			}else{
+				n = n.right;
+			}
+		}
+		// And down the right boundary, each node at or below high brings its left subtree, after what's found so far.
+		A after = null;
+		n = split.right;
+		while(n != null)
+		{
+			if(high.compareTo(n.key) >= 0){
+				after = this.combine(after, this.combine(this.aggregateOf(n.left), this.lift(n)));
+				n = n.right;
+			}else{
+				n = n.left;
+			}
+		}
+		return this.combine(this.combine(before, this.lift(split)), after);
+	}
+	
+	@Override
+	Node<K, V> newNode(K key, V value, boolean color)
+	{
+		return new AugmentedNode(key, value, color);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	void update(Node<K, V> n)
+	{
+		((AugmentedNode)n).aggregate = this.combine(this.combine(this.aggregateOf(n.left), this.lift(n)),
+				this.aggregateOf(n.right));
+		return;
+	}
+	
+	@SuppressWarnings("unchecked")
+	A aggregateOf(Node<K, V> n)
+	{
+		return n == null ? null : ((AugmentedNode)n).aggregate;
+	}
+	
+	private A lift(Node<K, V> n)
+	{
+		return this.mAggregator.lift(n.key, n.value);
+	}
+	
+	/*
+	 * Combines two aggregates, treating null as an empty subtree.
+	 */
+	private A combine(A left, A right)
+	{
+		if(left == null){
+			return right;
+		}else if(right == null){
+			return left;
+		}
+		return this.mAggregator.combine(left, right);
+	}
+	
+	/**
+	 * Defines the aggregate kept for each subtree.  combine must be associative, since subtrees are regrouped by rotations.
+	 * @param <K>
+	 * @param <V>
+	 * @param <A>
+	 */
+	public interface Aggregator<K, V, A>
+	{
+		/**
+		 * Returns the aggregate of a single entry.  Must not return null.
+		 */
+		A lift(K key, V value);
+		
+		/**
+		 * Returns the aggregate of the entries in left followed by those in right.
+		 */
+		A combine(A left, A right);
+	}
+	
+	private class AugmentedNode extends Node<K, V>
+	{
+		public A aggregate = null;
+		
+		public AugmentedNode(K key, V value, boolean color)
+		{
+			super(key, value, color, null, null);
+			return;
+		}
+	}
+}
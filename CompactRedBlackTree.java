@@ -0,0 +1,299 @@
+package redBlackTree1;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Memory-lean red-black tree.  Nodes keep no parent pointer and store their color as a boolean, so each one holds a key,
+ * a value, two child references and a flag: 32 bytes with compressed references, against 40 for a RedBlackTree node.
+ *
+ * Without parent pointers, fix-ups can't walk back up the tree, so put and remove use the top-down algorithms which rebalance
+ * on the way down in a single pass: color flips and rotations make sure the node being inserted under, or removed, is never
+ * left violating the red-black properties.  Each operation works with a handful of nodes near its current position.
+ *
+ * Based on the top-down insertion and deletion described by Julienne Walker at
+ * http://www.eternallyconfuzzled.com/tuts/datastructures/jsw_tut_rbtree.aspx
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-01-30
+ */
+public class CompactRedBlackTree<K extends Comparable<K>, V>
+{
+	private static final boolean LEFT = false;
+	private static final boolean RIGHT = true;
+	
+	private Node<K, V> mRoot = null;
+	private int mSize = 0;
+	
+	public V get(K key)
+	{
+		Node<K, V> n = this.getNode(key);
+		return n == null ? null : n.value;
+	}
+	
+	public boolean containsKey(K key)
+	{
+		return this.getNode(key) != null;
+	}
+	
+	private Node<K, V> getNode(K key)
+	{
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				return n;
+			}
+			n = comparison < 0 ? n.left : n.right;
+		}
+		return null;
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mRoot == null;
+	}
+	
+	public int size()
+	{
+		return this.mSize;
+	}
+	
+	public void clear()
+	{
+		this.mRoot = null;
+		this.mSize = 0;
+		return;
+	}
+	
+	public void put(K key, V value)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		if(this.mRoot == null){
+			this.mRoot = new Node<K, V>(key, value, false);
+			this.mSize = 1;
+			return;
+		}
+		/*
+		 * head is a false root above the real one, so a rotation at the root can be written like any other.  g, p and q are
+		 * grandparent, parent and current node, and t is g's parent.
+		 */
+		Node<K, V> head = new Node<K, V>(null, null, false);
+		Node<K, V> t = head;
+		Node<K, V> g = null;
+		Node<K, V> p = null;
+		Node<K, V> q = this.mRoot;
+		head.right = this.mRoot;
+		boolean dir = LEFT;
+		boolean last = LEFT;
+		while(true)
+		{
+			if(q == null){
+				q = new Node<K, V>(key, value, true);
+				this.setChild(p, dir, q);
+				this.mSize++;
+			}else if(this.isRed(q.left) && this.isRed(q.right)){
+				// Split a 4-node on the way down, so there is always room to insert below.
+				q.red = true;
+				q.left.red = false;
+				q.right.red = false;
+			}
+			if(this.isRed(q) && this.isRed(p)){
+				boolean dir2 = t.right == g;
+				if(q == this.child(p, last)){
+					this.setChild(t, dir2, this.rotate(g, !last));
+				}else{
+					this.setChild(t, dir2, this.rotateDouble(g, !last));
+				}
+			}
+			int comparison = key.compareTo(q.key);
+			if(comparison == 0){
+				q.value = value;
+				break;
+			}
+			last = dir;
+			dir = comparison > 0 ? RIGHT : LEFT;
+			if(g != null){
+				t = g;
+			}
+			g = p;
+			p = q;
+			q = this.child(q, dir);
+		}
+		this.mRoot = head.right;
+		this.mRoot.red = false;
+		return;
+	}
+	
+	public void remove(K key)
+	{
+		if(key == null || this.mRoot == null){
+			return;
+		}
+		/*
+		 * Pushes a red node down ahead of the search, so the node finally unlinked is red and removing it needs no fix-up.
+		 * The search continues past a match to the in-order predecessor, whose entry is copied into the match (f).
+		 */
+		Node<K, V> head = new Node<K, V>(null, null, false);
+		Node<K, V> q = head;
+		Node<K, V> p = null;
+		Node<K, V> g = null;
+		Node<K, V> f = null;
+		boolean dir = RIGHT;
+		head.right = this.mRoot;
+		while(this.child(q, dir) != null)
+		{
+			boolean last = dir;
+			g = p;
+			p = q;
+			q = this.child(q, dir);
+			int comparison = key.compareTo(q.key);
+			dir = comparison > 0 ? RIGHT : LEFT;
+			if(comparison == 0){
+				f = q;
+			}
+			if(!this.isRed(q) && !this.isRed(this.child(q, dir))){
+				if(this.isRed(this.child(q, !dir))){
+					Node<K, V> s = this.rotate(q, dir);
+					this.setChild(p, last, s);
+					p = s;
+				}else{
+					Node<K, V> s = this.child(p, !last);
+					if(s != null){
+						if(!this.isRed(s.left) && !this.isRed(s.right)){
+							p.red = false;
+							s.red = true;
+							q.red = true;
+						}else{
+							boolean dir2 = g.right == p;
+							if(this.isRed(this.child(s, last))){
+								this.setChild(g, dir2, this.rotateDouble(p, last));
+							}else{
+								this.setChild(g, dir2, this.rotate(p, last));
+							}
+							Node<K, V> top = this.child(g, dir2);
+							q.red = true;
+							top.red = true;
+							top.left.red = false;
+							top.right.red = false;
+						}
+					}
+				}
+			}
+		}
+		if(f != null){
+			f.key = q.key;
+			f.value = q.value;
+			this.setChild(p, p.right == q, q.left == null ? q.right : q.left);
+			this.mSize--;
+		}
+		this.mRoot = head.right;
+		if(this.mRoot != null){
+			this.mRoot.red = false;
+		}
+		return;
+	}
+	
+	/*
+	 * Rotates n in direction dir and recolors: the child which rises becomes black and n becomes red.
+	 */
+	private Node<K, V> rotate(Node<K, V> n, boolean dir)
+	{
+		Node<K, V> save = this.child(n, !dir);
+		this.setChild(n, !dir, this.child(save, dir));
+		this.setChild(save, dir, n);
+		n.red = true;
+		save.red = false;
+		return save;
+	}
+	
+	private Node<K, V> rotateDouble(Node<K, V> n, boolean dir)
+	{
+		this.setChild(n, !dir, this.rotate(this.child(n, !dir), !dir));
+		return this.rotate(n, dir);
+	}
+	
+	private Node<K, V> child(Node<K, V> n, boolean dir)
+	{
+		return dir == RIGHT ? n.right : n.left;
+	}
+	
+	private void setChild(Node<K, V> n, boolean dir, Node<K, V> child)
+	{
+		if(dir == RIGHT){
+			n.right = child;
+		}else{
+			n.left = child;
+		}
+		return;
+	}
+	
+	private boolean isRed(Node<K, V> n)
+	{
+		return n != null && n.red;
+	}
+	
+	public List<K> keyList()
+	{
+		List<K> list = new LinkedList<K>();
+		this.keyList(this.mRoot, list);
+		return list;
+	}
+	
+	private void keyList(Node<K, V> root, List<K> list)
+	{
+		if(root == null){
+			return;
+		}
+		
+		this.keyList(root.left, list);
+		list.add(root.key);
+		this.keyList(root.right, list);
+		return;
+	}
+	
+	public Collection<V> values()
+	{
+		ArrayList<V> col = new ArrayList<V>();
+		this.valueCollection(this.mRoot, col);
+		return col;
+	}
+	
+	private void valueCollection(Node<K, V> root, Collection<V> col)
+	{
+		if(root == null){
+			return;
+		}
+		
+		this.valueCollection(root.left, col);
+		col.add(root.value);
+		this.valueCollection(root.right, col);
+		return;
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class Node<K, V>
+	{
+		public boolean red = false;
+		public K key = null;
+		public V value = null;
+		public Node<K, V> left = null;
+		public Node<K, V> right = null;
+		
+		public Node(K key, V value, boolean red)
+		{
+			this.key = key;
+			this.value = value;
+			this.red = red;
+			return;
+		}
+	}
+}
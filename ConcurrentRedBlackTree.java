@@ -0,0 +1,151 @@
+package redBlackTree1;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe wrapper around RedBlackTree using a StampedLock.
+ * 
+ * Reads are optimistic: get, containsKey, size and isEmpty walk the tree without taking any lock, then check that no write
+ * happened in the meantime.  Only if one did do they retry under the read lock.  With reads far outnumbering writes, readers
+ * almost never block and never block each other.  Writers take the write lock, so they are serialized with one another.
+ * 
+ * A reader overlapping a write may see the tree half-rotated.  Its walk is capped at the greatest height a red-black tree of
+ * the current size can have, and any exception it hits is treated the same as a failed validation.
+ * 
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-01-30
+ */
+public class ConcurrentRedBlackTree<K extends Comparable<K>, V>
+{
+	private final RedBlackTree<K, V> mTree = new RedBlackTree<K, V>();
+	private final StampedLock mLock = new StampedLock();
+	
+	public V get(K key)
+	{
+		long stamp = this.mLock.tryOptimisticRead();
+		if(stamp != 0L){
+			try{
+				V value = this.mTree.get(key, this.maxSteps());
+				if(this.mLock.validate(stamp)){
+					return value;
+				}
+			}catch(RuntimeException ex){
+				// Saw a write in progress; fall through and read under the lock.
+			}
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.get(key);
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public boolean containsKey(K key)
+	{
+		long stamp = this.mLock.tryOptimisticRead();
+		if(stamp != 0L){
+			try{
+				boolean found = this.mTree.containsKey(key, this.maxSteps());
+				if(this.mLock.validate(stamp)){
+					return found;
+				}
+			}catch(RuntimeException ex){
+				// Saw a write in progress; fall through and read under the lock.
+			}
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.containsKey(key);
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * A red-black tree holding n keys is at most 2 * log2(n + 1) levels high.
+	 */
+	private int maxSteps()
+	{
+		int size = this.mTree.size();
+		return 2 * (32 - Integer.numberOfLeadingZeros(size + 1)) + 2;
+	}
+	
+	public int size()
+	{
+		long stamp = this.mLock.tryOptimisticRead();
+		int size = this.mTree.size();
+		if(this.mLock.validate(stamp)){
+			return size;
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.size();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.size() == 0;
+	}
+	
+	public List<K> keyList()
+	{
+		long stamp = this.mLock.readLock();
+		try{
+			return this.mTree.keyList();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public Collection<V> values()
+	{
+		long stamp = this.mLock.readLock();
+		try{
+			return this.mTree.values();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public void put(K key, V value)
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.put(key, value);
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+	
+	public void remove(K key)
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.remove(key);
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+	
+	public void clear()
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.clear();
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+}
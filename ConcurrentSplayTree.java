@@ -0,0 +1,204 @@
+package splayTree2;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe wrapper around SplayTree using a StampedLock.
+ *
+ * In a splay tree every lookup is also a write, since get rotates the key it finds up to the root.  Guarding get with a read
+ * lock would let two readers rotate the same nodes at once, so a plain wrapper has to give every reader the write lock, and
+ * reads end up as serialized as writes.
+ *
+ * This class splays on only a random share of reads, set by splayProbability.  Those take the write lock.  The rest call peek,
+ * which follows child links from the root and assigns nothing, so any number of them can share the tree.  They run without
+ * a lock under an optimistic stamp, and retry under the read lock only if a write, splaying reads included, happened in the
+ * meantime.
+ *
+ * What the peeking reads give up is the splay tree's adaptation.  A key found by peek stays where it is, so the tree reshapes
+ * itself toward the access pattern only through the sampled reads.  Hot keys are sampled in proportion to how often they are
+ * read, so they still rise toward the root, just more slowly.  The amortized O(log n) bound only covers operations that splay,
+ * so a peek into a tree left unbalanced by sorted inserts can take up to O(n) steps.
+ *
+ * A peek overlapping a write may follow links in the middle of a rotation.  Since a splay tree can be as deep as it has
+ * entries, the walk is capped at the entry count plus one, and any exception it hits is treated the same as a failed
+ * validation.
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-02-06
+ */
+public class ConcurrentSplayTree<K extends Comparable<K>, V>
+{
+	private static final double DEFAULT_SPLAY_PROBABILITY = 0.125;
+	
+	private final SplayTree<K, V> mTree = new SplayTree<K, V>();
+	private final StampedLock mLock = new StampedLock();
+	private final double mSplayProbability;
+	
+	public ConcurrentSplayTree()
+	{
+		this(DEFAULT_SPLAY_PROBABILITY);
+		return;
+	}
+	
+	/**
+	 * @param splayProbability chance, from 0.0 to 1.0, that a call to get or containsKey splays.
+	 */
+	public ConcurrentSplayTree(double splayProbability)
+	{
+		if(!(splayProbability >= 0.0 && splayProbability <= 1.0)){
+			throw new IllegalArgumentException("splayProbability parameter must be from 0.0 to 1.0.");
+		}
+		this.mSplayProbability = splayProbability;
+		return;
+	}
+	
+	public V get(K key)
+	{
+		if(this.shouldSplay()){
+			long stamp = this.mLock.writeLock();
+			try{
+				return this.mTree.get(key);
+			}finally{
+				this.mLock.unlockWrite(stamp);
+			}
+		}
+		long stamp = this.mLock.tryOptimisticRead();
+		if(stamp != 0L){
+			try{
+				V value = this.mTree.peek(key, this.maxSteps());
+				if(this.mLock.validate(stamp)){
+					return value;
+				}
+			}catch(RuntimeException ex){
+				// A rotation moved nodes under the walk; the stamp is invalid anyway, so retry with the read lock.
+			}
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.peek(key);
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public boolean containsKey(K key)
+	{
+		if(this.shouldSplay()){
+			long stamp = this.mLock.writeLock();
+			try{
+				return this.mTree.containsKey(key);
+			}finally{
+				this.mLock.unlockWrite(stamp);
+			}
+		}
+		long stamp = this.mLock.tryOptimisticRead();
+		if(stamp != 0L){
+			try{
+				boolean found = this.mTree.peekContainsKey(key, this.maxSteps());
+				if(this.mLock.validate(stamp)){
+					return found;
+				}
+			}catch(RuntimeException ex){
+				// A rotation moved nodes under the walk; the stamp is invalid anyway, so retry with the read lock.
+			}
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.peekContainsKey(key, Integer.MAX_VALUE);
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * Decided per thread, since a shared generator would be contended by every reader.
+	 */
+	private boolean shouldSplay()
+	{
+		return this.mSplayProbability > 0.0 && ThreadLocalRandom.current().nextDouble() < this.mSplayProbability;
+	}
+	
+	private int maxSteps()
+	{
+		return this.mTree.size() + 1;
+	}
+	
+	public int size()
+	{
+		long stamp = this.mLock.tryOptimisticRead();
+		int size = this.mTree.size();
+		if(this.mLock.validate(stamp)){
+			return size;
+		}
+		stamp = this.mLock.readLock();
+		try{
+			return this.mTree.size();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.size() == 0;
+	}
+	
+	public List<K> keyList()
+	{
+		long stamp = this.mLock.readLock();
+		try{
+			return this.mTree.keyList();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public Collection<V> values()
+	{
+		long stamp = this.mLock.readLock();
+		try{
+			return this.mTree.values();
+		}finally{
+			this.mLock.unlockRead(stamp);
+		}
+	}
+	
+	public void put(K key, V value)
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.put(key, value);
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+	
+	public void remove(K key)
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.remove(key);
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+	
+	public void clear()
+	{
+		long stamp = this.mLock.writeLock();
+		try{
+			this.mTree.clear();
+		}finally{
+			this.mLock.unlockWrite(stamp);
+		}
+		return;
+	}
+}
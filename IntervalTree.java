@@ -0,0 +1,212 @@
+package redBlackTree1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Red-black tree of closed intervals, ordered by their low endpoints, where each subtree also keeps the largest high endpoint
+ * found in it.  Subtrees whose largest endpoint falls below a query's low end can't overlap it and are skipped, so finding
+ * any overlapping interval takes O(log n) time and finding all k of them takes O(k log n).
+ *
+ * Intervals are keys, so two entries with the same endpoints replace each other like any other duplicate key.
+ *
+ * @author John McCullock
+ *
+ * @param <T> endpoint type.
+ * @param <V>
+ * @version 1.0 2019-01-30
+ */
+public class IntervalTree<T extends Comparable<T>, V> extends AugmentedRedBlackTree<IntervalTree.Interval<T>, V, T>
+{
+	public IntervalTree()
+	{
+		this(false, false);
+		return;
+	}
+	
+	/**
+	 * @param useDebugMode
+	 * @param useTopDown true to rebalance on the way down during put and remove, in a single pass.
+	 */
+	public IntervalTree(boolean useDebugMode, boolean useTopDown)
+	{
+		super(new MaxEndpoint<T, V>(), useDebugMode, useTopDown);
+		return;
+	}
+	
+	public void put(T low, T high, V value)
+	{
+		this.put(new Interval<T>(low, high), value);
+		return;
+	}
+	
+	public V get(T low, T high)
+	{
+		return this.get(new Interval<T>(low, high));
+	}
+	
+	public void remove(T low, T high)
+	{
+		this.remove(new Interval<T>(low, high));
+		return;
+	}
+	
+	/**
+	 * Returns an interval overlapping low to high, or null if there is none.
+	 * @param low
+	 * @param high
+	 * @return Interval
+	 */
+	public Interval<T> findAnyOverlap(T low, T high)
+	{
+		Interval<T> query = new Interval<T>(low, high);
+		Node<Interval<T>, V> n = this.getRootNode();
+		while(n != null)
+		{
+			if(n.key.overlaps(query)){
+				return n.key;
+			}
+			/*
+			 * If the left subtree reaches low, and still has nothing overlapping, then every interval there ends before high,
+			 * and so does every interval on the right, which all start later.  Either way only one side needs a look.
+			 */
+			if(n.left != null && this.aggregateOf(n.left).compareTo(low) >= 0){
+				n = n.left;
+			}else{
+				n = n.right;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns every entry whose interval overlaps low to high, in ascending order.
+	 * @param low
+	 * @param high
+	 * @return List
+	 */
+	public List<Map.Entry<Interval<T>, V>> findOverlaps(T low, T high)
+	{
+		Interval<T> query = new Interval<T>(low, high);
+		List<Map.Entry<Interval<T>, V>> results = new ArrayList<Map.Entry<Interval<T>, V>>();
+		this.findOverlaps(this.getRootNode(), query, results);
+		return results;
+	}
+	
+	/**
+	 * Returns every entry whose interval contains point, in ascending order.
+	 * @param point
+	 * @return List
+	 */
+	public List<Map.Entry<Interval<T>, V>> findContaining(T point)
+	{
+		return this.findOverlaps(point, point);
+	}
+	
+	private void findOverlaps(Node<Interval<T>, V> n, Interval<T> query, List<Map.Entry<Interval<T>, V>> results)
+	{
+		if(n == null || this.aggregateOf(n).compareTo(query.low) < 0){
+			return;
+		}
+		this.findOverlaps(n.left, query, results);
+		if(n.key.low.compareTo(query.high) > 0){
+			// This interval, and everything to its right, starts after the query ends.
+			return;
+		}
+		if(n.key.overlaps(query)){
+			results.add(n);
+		}
+		this.findOverlaps(n.right, query, results);
+		return;
+	}
+	
+	/**
+	 * Closed interval from low to high.  Ordered by low endpoint, then by high endpoint.
+	 * @param <T>
+	 */
+	@SuppressWarnings("hiding")
+	public static final class Interval<T extends Comparable<T>> implements Comparable<Interval<T>>
+	{
+		private final T low;
+		private final T high;
+		
+		public Interval(T low, T high)
+		{
+			if(low == null || high == null){
+				throw new IllegalArgumentException("Endpoints cannot be null.");
+			}
+			if(low.compareTo(high) > 0){
+				throw new IllegalArgumentException("low cannot be greater than high.");
+			}
+			this.low = low;
+			this.high = high;
+			return;
+		}
+		
+		public T getLow()
+		{
+			return this.low;
+		}
+		
+		public T getHigh()
+		{
+			return this.high;
+		}
+		
+		public boolean overlaps(Interval<T> that)
+		{
+			return this.low.compareTo(that.high) <= 0 && that.low.compareTo(this.high) <= 0;
+		}
+		
+		public boolean contains(T point)
+		{
+			return this.low.compareTo(point) <= 0 && point.compareTo(this.high) <= 0;
+		}
+		
+		@Override
+		public int compareTo(Interval<T> that)
+		{
+			int comparison = this.low.compareTo(that.low);
+			return comparison != 0 ? comparison : this.high.compareTo(that.high);
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Interval)){
+				return false;
+			}
+			Interval<?> that = (Interval<?>)o;
+			return this.low.equals(that.low) && this.high.equals(that.high);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return 31 * this.low.hashCode() + this.high.hashCode();
+		}
+		
+		@Override
+		public String toString()
+		{
+			return "[" + this.low + ", " + this.high + "]";
+		}
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class MaxEndpoint<T extends Comparable<T>, V> implements Aggregator<Interval<T>, V, T>
+	{
+		@Override
+		public T lift(Interval<T> key, V value)
+		{
+			return key.high;
+		}
+		
+		@Override
+		public T combine(T left, T right)
+		{
+			return left.compareTo(right) >= 0 ? left : right;
+		}
+	}
+}
@@ -0,0 +1,444 @@
+package avlTree3;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * AVL tree specialized for primitive long keys, with its nodes packed into parallel arrays instead of separate objects.
+ *
+ * Each AVLTree.Node is an object with a header, a boxed key, and references to its value and both children, which costs
+ * roughly 40 bytes per node plus the key object, scattered across the heap.  Here a node is just an index: its key, children,
+ * height and subtree size live at that index in arrays of long, int and byte, about 21 bytes per entry plus the value
+ * reference.  Lookups read neighbouring array slots rather than chasing pointers, and the garbage collector sees a handful of
+ * large arrays instead of millions of small objects.
+ *
+ * Index 0 is a sentinel standing in for null children, with a size of 0 and a height of -1, so no null checks are needed.
+ * Slots freed by remove go on a free list, chained through the left array, and are reused before the arrays grow.
+ *
+ * Based on AVLTree, which is based on article and code by Marcelo Silva found at:
+ * https://algs4.cs.princeton.edu/99misc/AVLTreeST.java.html
+ * @author John McCullock
+ *
+ * @param <V>
+ * @version 1.0 2019-03-12
+ */
+public class LongAVLTree<V>
+{
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private long[] mKeys = null;
+	private Object[] mValues = null;
+	private int[] mLeft = null;
+	private int[] mRight = null;
+	private int[] mSize = null;
+	/*
+	 * An AVL tree of 2^31 nodes is less than 45 levels high, so heights fit in a byte.
+	 */
+	private byte[] mHeight = null;
+	private int mRoot = NIL;
+	/*
+	 * Next never-used slot, and the head of the chain of slots released by remove.
+	 */
+	private int mNextSlot = 1;
+	private int mFreeList = NIL;
+	
+	public LongAVLTree()
+	{
+		this(DEFAULT_CAPACITY);
+		return;
+	}
+	
+	/**
+	 * @param initialCapacity number of entries to allocate room for up front.
+	 */
+	public LongAVLTree(int initialCapacity)
+	{
+		if(initialCapacity < 1){
+			throw new IllegalArgumentException("initialCapacity parameter cannot be less than one.");
+		}
+		int length = initialCapacity + 1;
+		this.mKeys = new long[length];
+		this.mValues = new Object[length];
+		this.mLeft = new int[length];
+		this.mRight = new int[length];
+		this.mSize = new int[length];
+		this.mHeight = new byte[length];
+		this.mHeight[NIL] = -1;
+		return;
+	}
+	
+	public void put(long key, V value)
+	{
+		if(value == null){
+			this.remove(key);
+			return;
+		}
+		this.mRoot = this.put(this.mRoot, key, value);
+		return;
+	}
+	
+	private int put(int n, long key, V value)
+	{
+		if(n == NIL){
+			return this.allocate(key, value);
+		}
+		/*
+		 * The child is found before it's stored because allocating can replace the arrays, and an assignment like
+		 * this.mLeft[n] = this.put(...) would write into the old array.
+		 */
+		if(key < this.mKeys[n]){
+			int child = this.put(this.mLeft[n], key, value);
+			this.mLeft[n] = child;
+		}else if(key > this.mKeys[n]){
+			int child = this.put(this.mRight[n], key, value);
+			this.mRight[n] = child;
+		}else{
+			this.mValues[n] = value;
+			return n;
+		}
+		this.update(n);
+		return this.balance(n);
+	}
+	
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int n = this.find(key);
+		return n == NIL ? null : (V)this.mValues[n];
+	}
+	
+	public boolean contains(long key)
+	{
+		return this.find(key) != NIL;
+	}
+	
+	private int find(long key)
+	{
+		int n = this.mRoot;
+		while(n != NIL)
+		{
+			long k = this.mKeys[n];
+			if(key < k){
+				n = this.mLeft[n];
+			}else if(key > k){
+				n = this.mRight[n];
+			}else{
+				return n;
+			}
+		}
+		return NIL;
+	}
+	
+	public void remove(long key)
+	{
+		if(!this.contains(key)){
+			return;
+		}
+		this.mRoot = this.remove(this.mRoot, key);
+		return;
+	}
+	
+	private int remove(int n, long key)
+	{
+		if(key < this.mKeys[n]){
+			this.mLeft[n] = this.remove(this.mLeft[n], key);
+		}else if(key > this.mKeys[n]){
+			this.mRight[n] = this.remove(this.mRight[n], key);
+		}else{
+			int left = this.mLeft[n];
+			int right = this.mRight[n];
+			this.release(n);
+			if(left == NIL){
+				return right;
+			}else if(right == NIL){
+				return left;
+			}
+			n = this.min(right);
+			this.mRight[n] = this.removeMin(right);
+			this.mLeft[n] = left;
+		}
+		this.update(n);
+		return this.balance(n);
+	}
+	
+	private int removeMin(int n)
+	{
+		if(this.mLeft[n] == NIL){
+			return this.mRight[n];
+		}
+		this.mLeft[n] = this.removeMin(this.mLeft[n]);
+		this.update(n);
+		return this.balance(n);
+	}
+	
+	public int size()
+	{
+		return this.mSize[this.mRoot];
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mRoot == NIL;
+	}
+	
+	public int height()
+	{
+		return this.mHeight[this.mRoot];
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(this.mValues, null);
+		this.mRoot = NIL;
+		this.mNextSlot = 1;
+		this.mFreeList = NIL;
+		return;
+	}
+	
+	public int rank(long key)
+	{
+		int rank = 0;
+		int n = this.mRoot;
+		while(n != NIL)
+		{
+			long k = this.mKeys[n];
+			if(key < k){
+				n = this.mLeft[n];
+			}else if(key > k){
+				rank += 1 + this.mSize[this.mLeft[n]];
+				n = this.mRight[n];
+			}else{
+				return rank + this.mSize[this.mLeft[n]];
+			}
+		}
+		return rank;
+	}
+	
+	public long select(int k)
+	{
+		if(k < 0 || k >= this.size()){
+			throw new IllegalArgumentException("Argument out of range: 0 to " + (this.size() - 1));
+		}
+		int n = this.mRoot;
+		while(true)
+		{
+			int t = this.mSize[this.mLeft[n]];
+			if(t > k){
+				n = this.mLeft[n];
+			}else if(t < k){
+				k = k - t - 1;
+				n = this.mRight[n];
+			}else{
+				return this.mKeys[n];
+			}
+		}
+	}
+	
+	/**
+	 * Returns the largest key less than or equal to key.
+	 * @param key
+	 * @return long
+	 * @throws NoSuchElementException if there is no such key.
+	 */
+	public long floor(long key)
+	{
+		int best = NIL;
+		int n = this.mRoot;
+		while(n != NIL)
+		{
+			long k = this.mKeys[n];
+			if(key == k){
+				return k;
+			}
+			if(key < k){
+				n = this.mLeft[n];
+			}else{
+				best = n;
+				n = this.mRight[n];
+			}
+		}
+		if(best == NIL){
+			throw new NoSuchElementException("No key less than or equal to " + key + ".");
+		}
+		return this.mKeys[best];
+	}
+	
+	/**
+	 * Returns the smallest key greater than or equal to key.
+	 * @param key
+	 * @return long
+	 * @throws NoSuchElementException if there is no such key.
+	 */
+	public long ceil(long key)
+	{
+		int best = NIL;
+		int n = this.mRoot;
+		while(n != NIL)
+		{
+			long k = this.mKeys[n];
+			if(key == k){
+				return k;
+			}
+			if(key > k){
+				n = this.mRight[n];
+			}else{
+				best = n;
+				n = this.mLeft[n];
+			}
+		}
+		if(best == NIL){
+			throw new NoSuchElementException("No key greater than or equal to " + key + ".");
+		}
+		return this.mKeys[best];
+	}
+	
+	public long min()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("LongAVLTree is empty.");
+		}
+		return this.mKeys[this.min(this.mRoot)];
+	}
+	
+	private int min(int n)
+	{
+		while(this.mLeft[n] != NIL)
+		{
+			n = this.mLeft[n];
+		}
+		return n;
+	}
+	
+	public long max()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("LongAVLTree is empty.");
+		}
+		int n = this.mRoot;
+		while(this.mRight[n] != NIL)
+		{
+			n = this.mRight[n];
+		}
+		return this.mKeys[n];
+	}
+	
+	/**
+	 * Returns all keys in ascending order.
+	 * @return long[]
+	 */
+	public long[] keys()
+	{
+		long[] results = new long[this.size()];
+		int[] stack = new int[this.height() + 2];
+		int top = 0;
+		int count = 0;
+		int n = this.mRoot;
+		while(n != NIL || top > 0)
+		{
+			while(n != NIL)
+			{
+				stack[top++] = n;
+				n = this.mLeft[n];
+			}
+			n = stack[--top];
+			results[count++] = this.mKeys[n];
+			n = this.mRight[n];
+		}
+		return results;
+	}
+	
+	private int allocate(long key, V value)
+	{
+		int n = this.mFreeList;
+		if(n != NIL){
+			this.mFreeList = this.mLeft[n];
+		}else{
+			if(this.mNextSlot == this.mKeys.length){
+				this.grow();
+			}
+			n = this.mNextSlot++;
+		}
+		this.mKeys[n] = key;
+		this.mValues[n] = value;
+		this.mLeft[n] = NIL;
+		this.mRight[n] = NIL;
+		this.mSize[n] = 1;
+		this.mHeight[n] = 0;
+		return n;
+	}
+	
+	private void release(int n)
+	{
+		this.mValues[n] = null;
+		this.mLeft[n] = this.mFreeList;
+		this.mFreeList = n;
+		return;
+	}
+	
+	private void grow()
+	{
+		int length = this.mKeys.length;
+		if(length == Integer.MAX_VALUE){
+			throw new IllegalStateException("LongAVLTree is full.");
+		}
+		length = (int)Math.min(Integer.MAX_VALUE, length + (length >> 1) + 1L);
+		this.mKeys = Arrays.copyOf(this.mKeys, length);
+		this.mValues = Arrays.copyOf(this.mValues, length);
+		this.mLeft = Arrays.copyOf(this.mLeft, length);
+		this.mRight = Arrays.copyOf(this.mRight, length);
+		this.mSize = Arrays.copyOf(this.mSize, length);
+		this.mHeight = Arrays.copyOf(this.mHeight, length);
+		return;
+	}
+	
+	private void update(int n)
+	{
+		int l = this.mLeft[n];
+		int r = this.mRight[n];
+		this.mSize[n] = 1 + this.mSize[l] + this.mSize[r];
+		this.mHeight[n] = (byte)(1 + Math.max(this.mHeight[l], this.mHeight[r]));
+		return;
+	}
+	
+	private int balanceFactor(int n)
+	{
+		return this.mHeight[this.mLeft[n]] - this.mHeight[this.mRight[n]];
+	}
+	
+	private int balance(int n)
+	{
+		if(this.balanceFactor(n) < -1){
+			if(this.balanceFactor(this.mRight[n]) > 0){
+				this.mRight[n] = this.rotateRight(this.mRight[n]);
+			}
+			n = this.rotateLeft(n);
+		}else if(this.balanceFactor(n) > 1){
+			if(this.balanceFactor(this.mLeft[n]) < 0){
+				this.mLeft[n] = this.rotateLeft(this.mLeft[n]);
+			}
+			n = this.rotateRight(n);
+		}
+		return n;
+	}
+	
+	private int rotateLeft(int x)
+	{
+		int y = this.mRight[x];
+		this.mRight[x] = this.mLeft[y];
+		this.mLeft[y] = x;
+		this.update(x);
+		this.update(y);
+		return y;
+	}
+	
+	private int rotateRight(int x)
+	{
+		int y = this.mLeft[x];
+		this.mLeft[x] = this.mRight[y];
+		this.mRight[y] = x;
+		this.update(x);
+		this.update(y);
+		return y;
+	}
+}
@@ -0,0 +1,60 @@
+package spatialHash1;
+
+/**
+ * Encodes two ints into a single long by interleaving their bits (a Morton code, or Z-order curve), and decodes them again.
+ * x takes the even bits and y the odd bits.
+ *
+ * Every pair of ints has its own code, so there are no collisions anywhere in the int range, negative values included.  The
+ * sign bit of each value is flipped before interleaving, so codes compared as unsigned longs (Long.compareUnsigned) follow
+ * the Z-order curve across the whole plane.  Points close together on the plane mostly get codes close together, which
+ * Cantor pairing doesn't give.
+ *
+ * https://en.wikipedia.org/wiki/Z-order_curve
+ * @author John McCullock
+ * @version 1.0  2019-01-16
+ */
+public class Morton
+{
+	public static long encode(int x, int y)
+	{
+		return spread(x ^ Integer.MIN_VALUE) | (spread(y ^ Integer.MIN_VALUE) << 1);
+	}
+	
+	public static int decodeX(long code)
+	{
+		return compact(code) ^ Integer.MIN_VALUE;
+	}
+	
+	public static int decodeY(long code)
+	{
+		return compact(code >>> 1) ^ Integer.MIN_VALUE;
+	}
+	
+	/*
+	 * Moves bit i of v to bit 2i, leaving zeros in between.  Each step splits the bits into twice as many groups, half as wide.
+	 */
+	private static long spread(int v)
+	{
+		long x = v & 0xFFFFFFFFL;
+		x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+	
+	/*
+	 * Inverse of spread: gathers the even bits of x back into an int.
+	 */
+	private static int compact(long x)
+	{
+		x &= 0x5555555555555555L;
+		x = (x | (x >>> 1)) & 0x3333333333333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+		return (int)x;
+	}
+}
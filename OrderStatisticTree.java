@@ -0,0 +1,116 @@
+package redBlackTree1;
+
+/**
+ * Red-black tree which keeps the number of entries in each subtree, so it can find a key's position in sorted order (rank),
+ * the key at a given position (select), and the number of keys in a range, all in O(log n) time.
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-01-30
+ */
+public class OrderStatisticTree<K extends Comparable<K>, V> extends AugmentedRedBlackTree<K, V, Integer>
+{
+	public OrderStatisticTree()
+	{
+		this(false, false);
+		return;
+	}
+	
+	/**
+	 * @param useDebugMode
+	 * @param useTopDown true to rebalance on the way down during put and remove, in a single pass.
+	 */
+	public OrderStatisticTree(boolean useDebugMode, boolean useTopDown)
+	{
+		super(new Count<K, V>(), useDebugMode, useTopDown);
+		return;
+	}
+	
+	/**
+	 * Returns the number of keys less than key.
+	 * @param key
+	 * @return int
+	 */
+	public int rank(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		int rank = 0;
+		Node<K, V> n = this.getRootNode();
+		while(n != null)
+		{
+			int comparison = key.compareTo(n.key);
+			if(comparison < 0){
+				n = n.left;
+			}else if(comparison > 0){
+				rank += 1 + this.count(n.left);
+				n = n.right;
+			}else{
+				return rank + this.count(n.left);
+			}
+		}
+		return rank;
+	}
+	
+	/**
+	 * Returns the key with rank k, the smallest being rank 0.
+	 * @param k
+	 * @return K
+	 */
+	public K select(int k)
+	{
+		if(k < 0 || k >= this.size()){
+			throw new IllegalArgumentException("Argument out of range: 0 to " + (this.size() - 1));
+		}
+		Node<K, V> n = this.getRootNode();
+		while(true)
+		{
+			int t = this.count(n.left);
+			if(t > k){
+				n = n.left;
+			}else if(t < k){
+				k = k - t - 1;
+				n = n.right;
+			}else{
+				return n.key;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of keys from low to high inclusive.
+	 * @param low
+	 * @param high
+	 * @return int
+	 */
+	public int count(K low, K high)
+	{
+		Integer count = this.aggregate(low, high);
+		return count == null ? 0 : count;
+	}
+	
+	private int count(Node<K, V> n)
+	{
+		Integer count = this.aggregateOf(n);
+		return count == null ? 0 : count;
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class Count<K, V> implements Aggregator<K, V, Integer>
+	{
+		@Override
+		public Integer lift(K key, V value)
+		{
+			return 1;
+		}
+		
+		@Override
+		public Integer combine(Integer left, Integer right)
+		{
+			return left + right;
+		}
+	}
+}
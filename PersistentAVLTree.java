@@ -0,0 +1,393 @@
+package avlTree3;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent (immutable) version of AVLTree.  put and remove never change an existing tree; they return a new tree which shares
+ * every untouched subtree with the old one, copying only the O(log n) nodes on the path to the change.  Old versions stay valid
+ * and unchanged for as long as anyone holds them.
+ *
+ * Since nodes are never modified after construction and all fields are final, a tree can be handed to any number of reader
+ * threads without locking.  A writer publishes a new version by storing the returned tree in a volatile field or an
+ * AtomicReference.
+ *
+ * Each node keeps the size of its subtree, so rank and select run in O(log n) time on any version.
+ *
+ * Based on AVLTree, which is based on article and code by Marcelo Silva found at:
+ * https://algs4.cs.princeton.edu/99misc/AVLTreeST.java.html
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-03-12
+ */
+public final class PersistentAVLTree <K extends Comparable<K>, V>
+{
+	private static final PersistentAVLTree<?, ?> EMPTY = new PersistentAVLTree<>(null);
+	
+	private final Node<K, V> mRoot;
+	
+	private PersistentAVLTree(Node<K, V> root)
+	{
+		this.mRoot = root;
+		return;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <K extends Comparable<K>, V> PersistentAVLTree<K, V> empty()
+	{
+		return (PersistentAVLTree<K, V>)EMPTY;
+	}
+	
+	/**
+	 * Returns a version of this tree with key mapped to value.  A null value removes the key.
+	 * @param key
+	 * @param value
+	 * @return PersistentAVLTree, or this tree if nothing changed.
+	 */
+	public PersistentAVLTree<K, V> put(K key, V value)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null");
+		}
+		if(value == null){
+			return this.remove(key);
+		}
+		return this.wrap(this.put(this.mRoot, key, value));
+	}
+	
+	private Node<K, V> put(Node<K, V> root, K key, V value)
+	{
+		if(root == null){
+			return new Node<K, V>(key, value, null, null);
+		}
+		int cmp = key.compareTo(root.key);
+		if(cmp < 0){
+			Node<K, V> left = this.put(root.left, key, value);
+			return left == root.left ? root : this.balance(root.key, root.value, left, root.right);
+		}else if(cmp > 0){
+			Node<K, V> right = this.put(root.right, key, value);
+			return right == root.right ? root : this.balance(root.key, root.value, root.left, right);
+		}else if(root.value == value){
+			return root;
+		}
+		return new Node<K, V>(key, value, root.left, root.right);
+	}
+	
+	/**
+	 * Returns a version of this tree without key.
+	 * @param key
+	 * @return PersistentAVLTree, or this tree if key wasn't present.
+	 */
+	public PersistentAVLTree<K, V> remove(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		return this.wrap(this.remove(this.mRoot, key));
+	}
+	
+	private Node<K, V> remove(Node<K, V> root, K key)
+	{
+		if(root == null){
+			return null;
+		}
+		int cmp = key.compareTo(root.key);
+		if(cmp < 0){
+			Node<K, V> left = this.remove(root.left, key);
+			return left == root.left ? root : this.balance(root.key, root.value, left, root.right);
+		}else if(cmp > 0){
+			Node<K, V> right = this.remove(root.right, key);
+			return right == root.right ? root : this.balance(root.key, root.value, root.left, right);
+		}
+		if(root.left == null){
+			return root.right;
+		}else if(root.right == null){
+			return root.left;
+		}
+		Node<K, V> successor = this.min(root.right);
+		return this.balance(successor.key, successor.value, root.left, this.removeMin(root.right));
+	}
+	
+	public PersistentAVLTree<K, V> removeMin()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		return this.wrap(this.removeMin(this.mRoot));
+	}
+	
+	private Node<K, V> removeMin(Node<K, V> root)
+	{
+		if(root.left == null){
+			return root.right;
+		}
+		return this.balance(root.key, root.value, this.removeMin(root.left), root.right);
+	}
+	
+	public PersistentAVLTree<K, V> removeMax()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		return this.wrap(this.removeMax(this.mRoot));
+	}
+	
+	private Node<K, V> removeMax(Node<K, V> root)
+	{
+		if(root.right == null){
+			return root.left;
+		}
+		return this.balance(root.key, root.value, root.left, this.removeMax(root.right));
+	}
+	
+	private PersistentAVLTree<K, V> wrap(Node<K, V> root)
+	{
+		if(root == this.mRoot){
+			return this;
+		}
+		return root == null ? PersistentAVLTree.<K, V>empty() : new PersistentAVLTree<K, V>(root);
+	}
+	
+	/*
+	 * Builds a node from key, value and two subtrees whose heights differ by at most two, rotating with new nodes where
+	 * needed so the result is AVL-compliant.
+	 */
+	private Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right)
+	{
+		int hl = this.height(left);
+		int hr = this.height(right);
+		if(hl > hr + 1){
+			if(this.height(left.left) >= this.height(left.right)){
+				return new Node<K, V>(left.key, left.value, left.left, new Node<K, V>(key, value, left.right, right));
+			}
+			Node<K, V> lr = left.right;
+			return new Node<K, V>(lr.key, lr.value, new Node<K, V>(left.key, left.value, left.left, lr.left),
+					new Node<K, V>(key, value, lr.right, right));
+		}else if(hr > hl + 1){
+			if(this.height(right.right) >= this.height(right.left)){
+				return new Node<K, V>(right.key, right.value, new Node<K, V>(key, value, left, right.left), right.right);
+			}
+			Node<K, V> rl = right.left;
+			return new Node<K, V>(rl.key, rl.value, new Node<K, V>(key, value, left, rl.left),
+					new Node<K, V>(right.key, right.value, rl.right, right.right));
+		}
+		return new Node<K, V>(key, value, left, right);
+	}
+	
+	public V get(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp < 0){
+				n = n.left;
+			}else if(cmp > 0){
+				n = n.right;
+			}else{
+				return n.value;
+			}
+		}
+		return null;
+	}
+	
+	public boolean contains(K key)
+	{
+		return this.get(key) != null;
+	}
+	
+	public int height()
+	{
+		return this.height(this.mRoot);
+	}
+	
+	private int height(Node<K, V> n)
+	{
+		return n == null ? -1 : n.height;
+	}
+	
+	public int size()
+	{
+		return this.size(this.mRoot);
+	}
+	
+	private int size(Node<K, V> n)
+	{
+		return n == null ? 0 : n.size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mRoot == null;
+	}
+	
+	public int rank(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		int rank = 0;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp < 0){
+				n = n.left;
+			}else if(cmp > 0){
+				rank += 1 + this.size(n.left);
+				n = n.right;
+			}else{
+				return rank + this.size(n.left);
+			}
+		}
+		return rank;
+	}
+	
+	public K select(int k)
+	{
+		if(k < 0 || k >= this.size()){
+			throw new IllegalArgumentException("Argument out of range: 0 to " + (this.size() - 1));
+		}
+		Node<K, V> n = this.mRoot;
+		while(true)
+		{
+			int t = this.size(n.left);
+			if(t > k){
+				n = n.left;
+			}else if(t < k){
+				k = k - t - 1;
+				n = n.right;
+			}else{
+				return n.key;
+			}
+		}
+	}
+	
+	public K floor(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		K best = null;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				return n.key;
+			}
+			if(cmp < 0){
+				n = n.left;
+			}else{
+				best = n.key;
+				n = n.right;
+			}
+		}
+		return best;
+	}
+	
+	public K ceil(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("Argument cannot be null.");
+		}
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		K best = null;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int cmp = key.compareTo(n.key);
+			if(cmp == 0){
+				return n.key;
+			}
+			if(cmp > 0){
+				n = n.right;
+			}else{
+				best = n.key;
+				n = n.left;
+			}
+		}
+		return best;
+	}
+	
+	public K min()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		return this.min(this.mRoot).key;
+	}
+	
+	private Node<K, V> min(Node<K, V> root)
+	{
+		while(root.left != null)
+		{
+			root = root.left;
+		}
+		return root;
+	}
+	
+	public K max()
+	{
+		if(this.isEmpty()){
+			throw new NoSuchElementException("PersistentAVLTree is empty.");
+		}
+		Node<K, V> n = this.mRoot;
+		while(n.right != null)
+		{
+			n = n.right;
+		}
+		return n.key;
+	}
+	
+	public List<K> keys()
+	{
+		List<K> list = new LinkedList<K>();
+		this.keys(this.mRoot, list);
+		return list;
+	}
+	
+	private void keys(Node<K, V> root, List<K> list)
+	{
+		if(root == null){
+			return;
+		}
+		this.keys(root.left, list);
+		list.add(root.key);
+		this.keys(root.right, list);
+		return;
+	}
+	
+	@SuppressWarnings("hiding")
+	private static final class Node<K, V>
+	{
+		public final K key;
+		public final V value;
+		public final int height;
+		public final int size;
+		public final Node<K, V> left;
+		public final Node<K, V> right;
+		
+		public Node(K key, V value, Node<K, V> left, Node<K, V> right)
+		{
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(left == null ? -1 : left.height, right == null ? -1 : right.height);
+			this.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+			return;
+		}
+	}
+}
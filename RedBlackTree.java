@@ -1,15 +1,27 @@
 package redBlackTree1;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Implements a red-black tree data structure, a self-balancing tree for storing key-value pairs.
  * 
  * Based on article and c++ code by Manish Bhojasia, found at https://www.sanfoundry.com/cpp-program-implement-red-black-tree/
  * 
+ * By default put and remove work bottom-up: they descend to the insertion or removal point, then walk back up through parent
+ * pointers repairing the tree, visiting the same nodes twice.  A tree constructed in top-down mode instead rebalances on the
+ * way down in a single pass, using the algorithms described by Julienne Walker at
+ * http://www.eternallyconfuzzled.com/tuts/datastructures/jsw_tut_rbtree.aspx
+ * which suits write-heavy workloads where the path is no longer in cache by the time the fix-up runs.
+ * 
  * @author John McCullock
  *
  * @param <K>
@@ -18,11 +30,30 @@ import java.util.List;
  */
 public class RedBlackTree<K extends Comparable<K>, V>
 {
-	private enum NodeColor{BLACK, RED};
+	/*
+	 * Colors are stored as a boolean rather than an enum reference, so checking one is a primitive comparison instead of a
+	 * call to equals.
+	 */
+	private static final boolean RED = true;
+	private static final boolean BLACK = false;
+	private static final boolean LEFT = false;
+	private static final boolean RIGHT = true;
 	
 	private Node<K, V> mRoot = null;
 	private int mSize = 0;
 	private boolean mInDebugMode = false;
+	private boolean mTopDown = false;
+	/*
+	 * Set by AugmentedRedBlackTree.  Plain trees skip the update calls entirely.
+	 */
+	private boolean mAugmented = false;
+	/*
+	 * Cheaper alternatives to debug mode: a full check after every mVerifyInterval-th put or remove, and a check along the
+	 * path each one touched.
+	 */
+	private int mVerifyInterval = 0;
+	private int mMutations = 0;
+	private boolean mVerifyLocally = false;
 	
 	public RedBlackTree()
 	{
@@ -44,6 +75,155 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return;
 	}
 	
+	/**
+	 * @param useDebugMode
+	 * @param useTopDown true to rebalance on the way down during put and remove, in a single pass.
+	 */
+	public RedBlackTree(boolean useDebugMode, boolean useTopDown)
+	{
+		this(useDebugMode);
+		this.mTopDown = useTopDown;
+		return;
+	}
+	
+	RedBlackTree(boolean useDebugMode, boolean useTopDown, boolean augmented)
+	{
+		this(useDebugMode, useTopDown);
+		this.mAugmented = augmented;
+		return;
+	}
+	
+	/**
+	 * Turns on invariant checks which are affordable outside of testing.  Unlike debug mode, which walks the whole tree after
+	 * every change and relies on assertions, these throw IllegalStateException, so they work with assertions disabled.
+	 * @param interval check the whole tree after every interval-th put or remove, or 0 never to.
+	 * @param verifyLocally check the path touched by every put or remove: colors, links, key order and black heights of each
+	 * node on it, in O(log^2 n) time.
+	 */
+	public void setVerification(int interval, boolean verifyLocally)
+	{
+		if(interval < 0){
+			throw new IllegalArgumentException("interval parameter cannot be negative.");
+		}
+		this.mVerifyInterval = interval;
+		this.mMutations = 0;
+		this.mVerifyLocally = verifyLocally;
+		return;
+	}
+	
+	/*
+	 * Runs whichever checks are turned on, after a put or remove.  touched is the lowest node the change left in the tree,
+	 * or null if none.
+	 */
+	private void afterMutation(Node<K, V> touched)
+	{
+		if(this.mInDebugMode){
+			this.verifyProperties();
+		}
+		if(this.mVerifyLocally){
+			this.verifyPath(touched);
+		}
+		if(this.mVerifyInterval > 0 && ++this.mMutations >= this.mVerifyInterval){
+			this.mMutations = 0;
+			this.verifyTree();
+		}
+		return;
+	}
+	
+	/*
+	 * Checks every node from n up to the root.  The black height on the way up is counted along the path itself, and each
+	 * sibling subtree's along its leftmost edge, so a change which unbalanced the path shows up without visiting the
+	 * rest of the tree.
+	 */
+	private void verifyPath(Node<K, V> n)
+	{
+		int height = this.leftBlackHeight(n);
+		while(n != null)
+		{
+			this.verifyLinks(n);
+			Node<K, V> parent = n.parent;
+			if(parent == null){
+				break;
+			}
+			Node<K, V> sibling = n == parent.left ? parent.right : parent.left;
+			if(this.leftBlackHeight(sibling) != height){
+				throw new IllegalStateException("Black heights differ below " + parent.key + ".");
+			}
+			if(parent.color == BLACK){
+				height++;
+			}
+			n = parent;
+		}
+		if(this.getNodeColor(this.mRoot) != BLACK){
+			throw new IllegalStateException("Root is red.");
+		}
+		return;
+	}
+	
+	private int leftBlackHeight(Node<K, V> n)
+	{
+		int height = 0;
+		while(n != null)
+		{
+			if(n.color == BLACK){
+				height++;
+			}
+			n = n.left;
+		}
+		return height;
+	}
+	
+	/*
+	 * Same properties as verifyProperties, plus parent links, key order and size.
+	 */
+	private void verifyTree()
+	{
+		if(this.getNodeColor(this.mRoot) != BLACK){
+			throw new IllegalStateException("Root is red.");
+		}
+		if(this.mRoot != null && this.mRoot.parent != null){
+			throw new IllegalStateException("Root has a parent.");
+		}
+		int[] count = new int[1];
+		this.verifyTree(this.mRoot, count);
+		if(count[0] != this.mSize){
+			throw new IllegalStateException("Tree holds " + count[0] + " entries but size is " + this.mSize + ".");
+		}
+		return;
+	}
+	
+	/*
+	 * Returns the black height of n's subtree.
+	 */
+	private int verifyTree(Node<K, V> n, int[] count)
+	{
+		if(n == null){
+			return 0;
+		}
+		this.verifyLinks(n);
+		count[0]++;
+		int left = this.verifyTree(n.left, count);
+		int right = this.verifyTree(n.right, count);
+		if(left != right){
+			throw new IllegalStateException("Black heights differ below " + n.key + ".");
+		}
+		return n.color == BLACK ? left + 1 : left;
+	}
+	
+	private void verifyLinks(Node<K, V> n)
+	{
+		if(n.color == RED && (this.getNodeColor(n.left) == RED || this.getNodeColor(n.right) == RED)){
+			throw new IllegalStateException("Red node " + n.key + " has a red child.");
+		}
+		if(n.left != null && (n.left.parent != n || n.left.key.compareTo(n.key) >= 0)){
+			throw new IllegalStateException("Bad left child under " + n.key + ".");
+		}
+		if(n.right != null && (n.right.parent != n || n.right.key.compareTo(n.key) <= 0)){
+			throw new IllegalStateException("Bad right child under " + n.key + ".");
+		}
+		return;
+	}
+	
 	private void verifyProperties()
 	{
 		this.verifyProperty1(this.mRoot);
@@ -60,7 +240,7 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	 */
 	private void verifyProperty1(Node<K, V> n)
 	{
-		assert (this.getNodeColor(n).equals(NodeColor.RED) || this.getNodeColor(n).equals(NodeColor.BLACK));
+		assert (this.getNodeColor(n) == RED || this.getNodeColor(n) == BLACK);
 		if(n == null){
 			return;
 		}
@@ -71,16 +251,16 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void verifyProperty2(Node<K, V> root)
 	{
-		assert (this.getNodeColor(root).equals(NodeColor.BLACK));
+		assert (this.getNodeColor(root) == BLACK);
 		return;
 	}
 	
 	private void verifyProperty4(Node<K, V> n)
 	{
-		if(this.getNodeColor(n).equals(NodeColor.RED)){
-			assert (this.getNodeColor(n.left).equals(NodeColor.BLACK));
-			assert (this.getNodeColor(n.right).equals(NodeColor.BLACK));
-			assert (this.getNodeColor(n.parent).equals(NodeColor.BLACK));
+		if(this.getNodeColor(n) == RED){
+			assert (this.getNodeColor(n.left) == BLACK);
+			assert (this.getNodeColor(n.right) == BLACK);
+			assert (this.getNodeColor(n.parent) == BLACK);
 		}
 		if(n == null){
 			return;
@@ -99,7 +279,7 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private int verifyProperty5(Node<K, V> n, int blackCount, int pathBlackCount)
 	{
-		if(this.getNodeColor(n).equals(NodeColor.BLACK)){
+		if(this.getNodeColor(n) == BLACK){
 			blackCount++;
 		}
 		if(n == null){
@@ -132,6 +312,43 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return n;
 	}
 	
+	/*
+	 * Lookup for optimistic readers in ConcurrentRedBlackTree, which may walk the tree while a writer is changing it.  A torn
+	 * read could lead anywhere, so the walk gives up with an IllegalStateException after maxSteps nodes rather than risk
+	 * looping.  The caller discards the result unless its read stamp is still valid.
+	 */
+	private Node<K, V> getNode(K key, int maxSteps)
+	{
+		Node<K, V> n = this.mRoot;
+		int steps = 0;
+		while(n != null)
+		{
+			if(++steps > maxSteps){
+				throw new IllegalStateException("Lookup exceeded " + maxSteps + " steps.");
+			}
+			int comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				return n;
+			}else if(comparison < 0){
+				n = n.left;
+			}else{
+				n = n.right;
+			}
+		}
+		return n;
+	}
+	
+	V get(K key, int maxSteps)
+	{
+		Node<K, V> n = this.getNode(key, maxSteps);
+		return n == null ? null : n.value;
+	}
+	
+	boolean containsKey(K key, int maxSteps)
+	{
+		return this.getNode(key, maxSteps) != null;
+	}
+	
 	public V get(K key)
 	{
 		Node<K, V> n = this.getNode(key);
@@ -192,6 +409,175 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return;
 	}
 	
+	/**
+	 * Returns the greatest key less than or equal to key, or null if there is none.
+	 * @param key
+	 * @return K
+	 */
+	public K floorKey(K key)
+	{
+		return this.keyOf(this.floorNode(key, true));
+	}
+	
+	/**
+	 * Returns the greatest key strictly less than key, or null if there is none.
+	 * @param key
+	 * @return K
+	 */
+	public K lowerKey(K key)
+	{
+		return this.keyOf(this.floorNode(key, false));
+	}
+	
+	/**
+	 * Returns the least key greater than or equal to key, or null if there is none.
+	 * @param key
+	 * @return K
+	 */
+	public K ceilingKey(K key)
+	{
+		return this.keyOf(this.ceilingNode(key, true));
+	}
+	
+	/**
+	 * Returns the least key strictly greater than key, or null if there is none.
+	 * @param key
+	 * @return K
+	 */
+	public K higherKey(K key)
+	{
+		return this.keyOf(this.ceilingNode(key, false));
+	}
+	
+	public K firstKey()
+	{
+		if(this.mRoot == null){
+			throw new NoSuchElementException("RedBlackTree is empty.");
+		}
+		return this.getMinNode(this.mRoot).key;
+	}
+	
+	public K lastKey()
+	{
+		if(this.mRoot == null){
+			throw new NoSuchElementException("RedBlackTree is empty.");
+		}
+		return this.getMaxNode(this.mRoot).key;
+	}
+	
+	private K keyOf(Node<K, V> n)
+	{
+		return n == null ? null : n.key;
+	}
+	
+	private Node<K, V> floorNode(K key, boolean inclusive)
+	{
+		Node<K, V> best = null;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int comparison = key.compareTo(n.key);
+			if(comparison > 0 || (comparison == 0 && inclusive)){
+				best = n;
+				if(comparison == 0){
+					break;
+				}
+				n = n.right;
+			}else{
+				n = n.left;
+			}
+		}
+		return best;
+	}
+	
+	private Node<K, V> ceilingNode(K key, boolean inclusive)
+	{
+		Node<K, V> best = null;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			int comparison = key.compareTo(n.key);
+			if(comparison < 0 || (comparison == 0 && inclusive)){
+				best = n;
+				if(comparison == 0){
+					break;
+				}
+				n = n.left;
+			}else{
+				n = n.right;
+			}
+		}
+		return best;
+	}
+	
+	/*
+	 * In-order successor by way of the parent pointers, so iteration needs no stack.
+	 */
+	private Node<K, V> successor(Node<K, V> n)
+	{
+		if(n.right != null){
+			return this.getMinNode(n.right);
+		}
+		Node<K, V> p = n.parent;
+		while(p != null && n == p.right)
+		{
+			n = p;
+			p = p.parent;
+		}
+		return p;
+	}
+	
+	/**
+	 * Iterates over all entries in ascending key order, stepping from each node to its successor through the parent pointers.
+	 * Nothing is copied and no stack is kept, so each step is O(1) amortized.  Entries are the tree's own nodes, so setValue
+	 * writes through.  The tree must not be modified during iteration.
+	 * @return Iterator
+	 */
+	public Iterator<Map.Entry<K, V>> entryIterator()
+	{
+		return new EntryIterator(this.mRoot == null ? null : this.getMinNode(this.mRoot), null, false);
+	}
+	
+	public Iterator<K> keyIterator()
+	{
+		final Iterator<Map.Entry<K, V>> it = this.entryIterator();
+		return new Iterator<K>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public K next()
+			{
+				return it.next().getKey();
+			}
+		};
+	}
+	
+	/**
+	 * Returns a read-only view of the entries with keys from fromKey to toKey.  The view is backed by this tree, so later
+	 * changes to the tree show through.  get and containsKey are O(log n), and iterating over k entries is O(log n + k).
+	 * size() counts by iterating.  Changes through the view throw UnsupportedOperationException.
+	 * @param fromKey
+	 * @param fromInclusive
+	 * @param toKey
+	 * @param toInclusive
+	 * @return Map
+	 */
+	public Map<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+	{
+		if(fromKey == null || toKey == null){
+			throw new IllegalArgumentException("Key arguments cannot be null.");
+		}
+		if(fromKey.compareTo(toKey) > 0){
+			throw new IllegalArgumentException("fromKey cannot be greater than toKey.");
+		}
+		return new SubMap(fromKey, fromInclusive, toKey, toInclusive);
+	}
+	
 	private void rotateLeft(Node<K, V> n)
 	{
 		Node<K, V> r = n.right;
@@ -202,6 +588,10 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		}
 		r.left = n;
 		n.parent = r;
+		if(this.mAugmented){
+			this.update(n);
+			this.update(r);
+		}
 		return;
 	}
 	
@@ -215,9 +605,53 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		}
 		lef.right = n;
 		n.parent = lef;
+		if(this.mAugmented){
+			this.update(n);
+			this.update(lef);
+		}
 		return;
 	}
 	
+	/**
+	 * Augmentation hook: creates each node linked into the tree, so a subclass can supply a node type with extra fields.
+	 * @param key
+	 * @param value
+	 * @param color
+	 * @return Node
+	 */
+	Node<K, V> newNode(K key, V value, boolean color)
+	{
+		return new Node<K, V>(key, value, color, null, null);
+	}
+	
+	/**
+	 * Augmentation hook: recomputes whatever a subclass keeps about n's subtree, from n's entry and its children.  Called on
+	 * the nodes a rotation moves, and on every node from a changed one up to the root, so children are always current first.
+	 * @param n
+	 */
+	void update(Node<K, V> n)
+	{
+		return;
+	}
+	
+	private void updatePath(Node<K, V> n)
+	{
+		if(!this.mAugmented){
+			return;
+		}
+		while(n != null)
+		{
+			this.update(n);
+			n = n.parent;
+		}
+		return;
+	}
+	
+	Node<K, V> getRootNode()
+	{
+		return this.mRoot;
+	}
+	
 	private void replaceNode(Node<K, V> oldN, Node<K, V> newN)
 	{
 		if(oldN.parent == null){
@@ -237,7 +671,11 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	public void put(K key, V value)
 	{
-		Node<K, V> newNode = new Node<K, V>(key, value, NodeColor.RED, null, null);
+		if(this.mTopDown){
+			this.afterMutation(this.putTopDown(key, value));
+			return;
+		}
+		Node<K, V> newNode = this.newNode(key, value, RED);
 		if(this.mRoot == null){
 			this.mRoot = newNode;
 			this.mSize = 1;
@@ -248,6 +686,7 @@ public class RedBlackTree<K extends Comparable<K>, V>
 				int comparison = key.compareTo(n.key);
 				if(comparison == 0){
 					n.value = value;
+					this.updatePath(n);
 					return;
 				}else if(comparison < 0){
 					if(n.left == null){
@@ -269,16 +708,15 @@ public class RedBlackTree<K extends Comparable<K>, V>
 			this.mSize++;
 		}
 		this.insertCase1(newNode);
-		if(this.mInDebugMode){
-			this.verifyProperties();
-		}
+		this.updatePath(newNode);
+		this.afterMutation(newNode);
 		return;
 	}
 	
 	private void insertCase1(Node<K, V> n)
 	{
 		if(n.parent == null){
-			n.color = NodeColor.BLACK;
+			n.color = BLACK;
 		}else{
 			this.insertCase2(n);
 		}
@@ -287,7 +725,7 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void insertCase2(Node<K, V> n)
 	{
-		if(this.getNodeColor(n.parent).equals(NodeColor.BLACK)){
+		if(this.getNodeColor(n.parent) == BLACK){
 			return;
 		}else{
 			this.insertCase3(n);
@@ -297,10 +735,10 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void insertCase3(Node<K, V> n)
 	{
-		if(this.getNodeColor(uncle(n)).equals(NodeColor.RED)){
-			n.parent.color = NodeColor.BLACK;
-			uncle(n).color = NodeColor.BLACK;
-			grandparent(n).color = NodeColor.RED;
+		if(this.getNodeColor(uncle(n)) == RED){
+			n.parent.color = BLACK;
+			uncle(n).color = BLACK;
+			grandparent(n).color = RED;
 			this.insertCase1(grandparent(n));
 		}else{
 			this.insertCase4(n);
@@ -323,8 +761,8 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void insertCase5(Node<K, V> n)
 	{
-		n.parent.color = NodeColor.BLACK;
-		grandparent(n).color = NodeColor.RED;
+		n.parent.color = BLACK;
+		grandparent(n).color = RED;
 		if(n == n.parent.left && n.parent == grandparent(n).left){
 			this.rotateRight(grandparent(n));
 		}else{
@@ -334,6 +772,55 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return;
 	}
 	
+	/*
+	 * Splits any node with two red children on the way down, so that when a red node ends up under a red parent its uncle is
+	 * black and one rotation (insertCase4) fixes it locally.  Nothing is left to repair once the key is reached.  Returns
+	 * the node holding key.
+	 */
+	private Node<K, V> putTopDown(K key, V value)
+	{
+		if(this.mRoot == null){
+			this.mRoot = this.newNode(key, value, BLACK);
+			this.updatePath(this.mRoot);
+			this.mSize = 1;
+			return this.mRoot;
+		}
+		Node<K, V> n = this.mRoot;
+		Node<K, V> parent = null;
+		int comparison = 0;
+		while(true)
+		{
+			if(n == null){
+				n = this.newNode(key, value, RED);
+				n.parent = parent;
+				if(comparison < 0){
+					parent.left = n;
+				}else{
+					parent.right = n;
+				}
+				this.mSize++;
+			}else if(this.getNodeColor(n.left) == RED && this.getNodeColor(n.right) == RED){
+				n.color = RED;
+				n.left.color = BLACK;
+				n.right.color = BLACK;
+			}
+			if(n.color == RED && this.getNodeColor(n.parent) == RED){
+				assert (this.getNodeColor(uncle(n)) == BLACK);
+				this.insertCase4(n);
+			}
+			comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				n.value = value;
+				this.updatePath(n);
+				break;
+			}
+			parent = n;
+			n = comparison < 0 ? n.left : n.right;
+		}
+		this.mRoot.color = BLACK;
+		return n;
+	}
+	
 	public void clear()
 	{
 		this.mRoot = null;
@@ -343,6 +830,10 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	public void remove(K key)
 	{
+		if(this.mTopDown){
+			this.afterMutation(this.removeTopDown(key));
+			return;
+		}
 		Node<K, V> child = null;
 		Node<K, V> n = this.getNode(key);
 		if(n == null){
@@ -356,16 +847,20 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		}
 		assert (n.left == null || n.right == null);
 		child = n.right == null ? n.left : n.right;
-		if(this.getNodeColor(n).equals(NodeColor.BLACK)){
+		if(this.getNodeColor(n) == BLACK){
 			n.color = this.getNodeColor(child);
 			this.deleteCase1(n);
 		}
+		Node<K, V> parent = n.parent;
 		this.replaceNode(n, child);
+		if(parent == null && child != null){
+			// A red child promoted to the root; deleteCase1 stops at the root without recoloring.
+			child.color = BLACK;
+		}
+		this.updatePath(parent);
 		n = null;
 		this.mSize--;
-		if(this.mInDebugMode){
-			this.verifyProperties();
-		}
+		this.afterMutation(parent);
 		return;
 	}
 	
@@ -381,9 +876,9 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void deleteCase2(Node<K, V> n)
 	{
-		if(this.getNodeColor(sibling(n)).equals(NodeColor.RED)){
-			n.parent.color = NodeColor.RED;
-			sibling(n).color = NodeColor.BLACK;
+		if(this.getNodeColor(sibling(n)) == RED){
+			n.parent.color = RED;
+			sibling(n).color = BLACK;
 			if(n == n.parent.left){
 				this.rotateLeft(n.parent);
 			}else{
@@ -396,11 +891,11 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void deleteCase3(Node<K, V> n)
 	{
-		if(this.getNodeColor(n.parent).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n)).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n).left).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n).right).equals(NodeColor.BLACK)){
-			sibling(n).color = NodeColor.RED;
+		if(this.getNodeColor(n.parent) == BLACK && 
+				this.getNodeColor(sibling(n)) == BLACK && 
+				this.getNodeColor(sibling(n).left) == BLACK && 
+				this.getNodeColor(sibling(n).right) == BLACK){
+			sibling(n).color = RED;
 			this.deleteCase1(n.parent);
 		}else{
 			this.deleteCase4(n);
@@ -410,12 +905,12 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	
 	private void deleteCase4(Node<K, V> n)
 	{
-		if(this.getNodeColor(n.parent).equals(NodeColor.RED) && 
-				this.getNodeColor(sibling(n)).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n).left).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n).right).equals(NodeColor.BLACK)){
-			sibling(n).color = NodeColor.RED;
-			n.parent.color = NodeColor.BLACK;
+		if(this.getNodeColor(n.parent) == RED && 
+				this.getNodeColor(sibling(n)) == BLACK && 
+				this.getNodeColor(sibling(n).left) == BLACK && 
+				this.getNodeColor(sibling(n).right) == BLACK){
+			sibling(n).color = RED;
+			n.parent.color = BLACK;
 		}else{
 			this.deleteCase5(n);
 		}
@@ -425,18 +920,18 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	private void deleteCase5(Node<K, V> n)
 	{
 		if(n == n.parent.left && 
-				this.getNodeColor(sibling(n)).equals(NodeColor.BLACK) && 
-				this.getNodeColor(sibling(n).left).equals(NodeColor.RED) && 
-				this.getNodeColor(sibling(n).right).equals(NodeColor.BLACK)){
-			sibling(n).color = NodeColor.RED;
-			sibling(n).left.color = NodeColor.BLACK;
+				this.getNodeColor(sibling(n)) == BLACK && 
+				this.getNodeColor(sibling(n).left) == RED && 
+				this.getNodeColor(sibling(n).right) == BLACK){
+			sibling(n).color = RED;
+			sibling(n).left.color = BLACK;
 			this.rotateRight(sibling(n));
 		}else if(n == n.parent.right && 
-				this.getNodeColor(sibling(n)).equals(NodeColor.BLACK) &&
-				this.getNodeColor(sibling(n).right).equals(NodeColor.RED) &&
-				this.getNodeColor(sibling(n).left).equals(NodeColor.BLACK)){
-			sibling(n).color = NodeColor.RED;
-			sibling(n).right.color = NodeColor.BLACK;
+				this.getNodeColor(sibling(n)) == BLACK &&
+				this.getNodeColor(sibling(n).right) == RED &&
+				this.getNodeColor(sibling(n).left) == BLACK){
+			sibling(n).color = RED;
+			sibling(n).right.color = BLACK;
 			this.rotateLeft(sibling(n));
 		}
 		this.deleteCase6(n);
@@ -446,22 +941,106 @@ public class RedBlackTree<K extends Comparable<K>, V>
 	private void deleteCase6(Node<K, V> n)
 	{
 		sibling(n).color = this.getNodeColor(n.parent);
-		n.parent.color = NodeColor.BLACK;
+		n.parent.color = BLACK;
 		if(n == n.parent.left){
-			assert(this.getNodeColor(sibling(n).right) == NodeColor.RED);
-			sibling(n).right.color = NodeColor.BLACK;
+			assert(this.getNodeColor(sibling(n).right) == RED);
+			sibling(n).right.color = BLACK;
 			this.rotateLeft(n.parent);
 		}else{
-			assert(this.getNodeColor(sibling(n).left) == NodeColor.RED);
-			sibling(n).left.color = NodeColor.BLACK;
+			assert(this.getNodeColor(sibling(n).left) == RED);
+			sibling(n).left.color = BLACK;
 			this.rotateRight(n.parent);
 		}
 		return;
 	}
 	
-	private NodeColor getNodeColor(Node<K, V> n)
+	/*
+	 * Pushes a red node down ahead of the search, so the node finally unlinked is red and removing it needs no fix-up.  The
+	 * search continues past a match to the in-order predecessor, whose entry is copied into the match (f).  q is the current
+	 * node, p its parent and s its sibling.  Returns the lowest node left on the search path, since the descent restructures
+	 * the tree whether or not key is found.
+	 */
+	private Node<K, V> removeTopDown(K key)
+	{
+		Node<K, V> q = null;
+		Node<K, V> p = null;
+		Node<K, V> f = null;
+		Node<K, V> next = this.mRoot;
+		boolean dir = RIGHT;
+		while(next != null)
+		{
+			boolean last = dir;
+			p = q;
+			q = next;
+			int comparison = key.compareTo(q.key);
+			dir = comparison > 0 ? RIGHT : LEFT;
+			if(comparison == 0){
+				f = q;
+			}
+			if(q.color == BLACK && this.getNodeColor(this.child(q, dir)) == BLACK){
+				if(this.getNodeColor(this.child(q, !dir)) == RED){
+					this.rotate(q, dir);
+					p = q.parent;
+				}else if(p != null){
+					Node<K, V> s = this.child(p, !last);
+					if(s != null){
+						if(this.getNodeColor(s.left) == BLACK && this.getNodeColor(s.right) == BLACK){
+							p.color = BLACK;
+							s.color = RED;
+							q.color = RED;
+						}else{
+							if(this.getNodeColor(this.child(s, last)) == RED){
+								this.rotate(s, !last);
+							}
+							this.rotate(p, last);
+							Node<K, V> top = p.parent;
+							q.color = RED;
+							top.color = RED;
+							top.left.color = BLACK;
+							top.right.color = BLACK;
+						}
+					}
+				}
+			}
+			next = this.child(q, dir);
+		}
+		if(f != null){
+			f.key = q.key;
+			f.value = q.value;
+			this.replaceNode(q, q.left == null ? q.right : q.left);
+			this.updatePath(q.parent);
+			this.mSize--;
+			q = q.parent;
+		}
+		if(this.mRoot != null){
+			this.mRoot.color = BLACK;
+		}
+		return q;
+	}
+	
+	/*
+	 * Rotates n down in direction dir and recolors: the child which rises becomes black and n becomes red.
+	 */
+	private void rotate(Node<K, V> n, boolean dir)
+	{
+		if(dir == RIGHT){
+			this.rotateRight(n);
+		}else{
+			this.rotateLeft(n);
+		}
+		n.color = RED;
+		n.parent.color = BLACK;
+		return;
+	}
+	
+	private Node<K, V> child(Node<K, V> n, boolean dir)
 	{
-		return n == null ? NodeColor.BLACK : n.color;
+		return dir == RIGHT ? n.right : n.left;
+	}
+	
+	private boolean getNodeColor(Node<K, V> n)
+	{
+		return n == null ? BLACK : n.color;
 	}
 	
 	private Node<K, V> uncle(Node<K, V> n)
@@ -491,6 +1070,25 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return n.parent.parent;
 	}
 	
+	private Node<K, V> getMinNode(Node<K, V> n)
+	{
+		assert (n != null);
+		while(n.left != null){
+			n = n.left;
+		}
+		return n;
+	}
+	
+	/*
+	 * Node is generic in its own K and V, which hide the tree's, so a node handed back from setValue needs this cast.
+	 */
+	@SuppressWarnings("unchecked")
+	private void updateEntry(Node<?, ?> n)
+	{
+		this.updatePath((Node<K, V>)n);
+		return;
+	}
+	
 	private Node<K, V> getMaxNode(Node<K, V> n)
 	{
 		assert (n != null);
@@ -500,17 +1098,130 @@ public class RedBlackTree<K extends Comparable<K>, V>
 		return n;
 	}
 	
+	/*
+	 * Walks successors from a starting node until passing the upper bound, if any.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V>>
+	{
+		private Node<K, V> mNext = null;
+		private K mHigh = null;
+		private boolean mHighInclusive = false;
+		
+		public EntryIterator(Node<K, V> first, K high, boolean highInclusive)
+		{
+			this.mHigh = high;
+			this.mHighInclusive = highInclusive;
+			this.mNext = this.inRange(first) ? first : null;
+			return;
+		}
+		
+		private boolean inRange(Node<K, V> n)
+		{
+			if(n == null){
+				return false;
+			}
+			if(this.mHigh == null){
+				return true;
+			}
+			int comparison = n.key.compareTo(this.mHigh);
+			return comparison < 0 || (comparison == 0 && this.mHighInclusive);
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return this.mNext != null;
+		}
+		
+		@Override
+		public Map.Entry<K, V> next()
+		{
+			if(this.mNext == null){
+				throw new NoSuchElementException();
+			}
+			Node<K, V> result = this.mNext;
+			Node<K, V> n = successor(result);
+			this.mNext = this.inRange(n) ? n : null;
+			return result;
+		}
+	}
+	
+	private class SubMap extends AbstractMap<K, V>
+	{
+		private K mFrom = null;
+		private boolean mFromInclusive = false;
+		private K mTo = null;
+		private boolean mToInclusive = false;
+		
+		public SubMap(K from, boolean fromInclusive, K to, boolean toInclusive)
+		{
+			this.mFrom = from;
+			this.mFromInclusive = fromInclusive;
+			this.mTo = to;
+			this.mToInclusive = toInclusive;
+			return;
+		}
+		
+		private boolean inRange(K key)
+		{
+			int low = key.compareTo(this.mFrom);
+			int high = key.compareTo(this.mTo);
+			return (low > 0 || (low == 0 && this.mFromInclusive)) && (high < 0 || (high == 0 && this.mToInclusive));
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public V get(Object key)
+		{
+			if(key == null || !this.inRange((K)key)){
+				return null;
+			}
+			return RedBlackTree.this.get((K)key);
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return key != null && this.inRange((K)key) && RedBlackTree.this.containsKey((K)key);
+		}
+		
+		@Override
+		public Set<Map.Entry<K, V>> entrySet()
+		{
+			return new AbstractSet<Map.Entry<K, V>>()
+			{
+				@Override
+				public Iterator<Map.Entry<K, V>> iterator()
+				{
+					return new EntryIterator(ceilingNode(mFrom, mFromInclusive), mTo, mToInclusive);
+				}
+				
+				@Override
+				public int size()
+				{
+					int count = 0;
+					for(Iterator<Map.Entry<K, V>> it = this.iterator(); it.hasNext(); it.next())
+					{
+						count++;
+					}
+					return count;
+				}
+			};
+		}
+	}
+	
 	@SuppressWarnings("hiding")
-	private class Node<K extends Comparable<K>, V>
+	class Node<K extends Comparable<K>, V> implements Map.Entry<K, V>
 	{
-		public NodeColor color = null;
+		public boolean color = BLACK;
 		public K key = null;
 		public V value = null;
 		public Node<K, V> parent = null;
 		public Node<K, V> left = null;
 		public Node<K, V> right = null;
 		
-		public Node(K key, V value, NodeColor color, Node<K, V> left, Node<K, V> right)
+		public Node(K key, V value, boolean color, Node<K, V> left, Node<K, V> right)
 		{
 			this.key = key;
 			this.value = value;
@@ -526,6 +1237,49 @@ public class RedBlackTree<K extends Comparable<K>, V>
 			this.parent = null;
 			return;
 		}
+		
+		@Override
+		public K getKey()
+		{
+			return this.key;
+		}
+		
+		@Override
+		public V getValue()
+		{
+			return this.value;
+		}
+		
+		@Override
+		public V setValue(V value)
+		{
+			V old = this.value;
+			this.value = value;
+			updateEntry(this);
+			return old;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+			return this.key.equals(e.getKey()) && (this.value == null ? e.getValue() == null : this.value.equals(e.getValue()));
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return this.key.hashCode() ^ (this.value == null ? 0 : this.value.hashCode());
+		}
+		
+		@Override
+		public String toString()
+		{
+			return this.key + "=" + this.value;
+		}
 	}
 	
 	
@@ -2,17 +2,30 @@ package spatialHash1;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * SpatialHashMap is a special kind of HashMap that use 2D grid coordinates to store items based on their x-y coordinates.
  * 
  * This is different than a multidimensional key/value map.  Both x and y values are combined into a single key using a pairing 
- * algorithm, the Cantor pairing method in this case. 
+ * algorithm, Morton (Z-order) bit interleaving in this case. 
  * 
- * As items are added, their x-y coordinates are compared in relation to grid coordinates, yielding x-y grid coordinates which 
- * are paired using the Cantor Pairing algorithm.  The result of the pairing is a long integer, for use as a key in a HashMap. 
- * Each key represents an entire grid square, which can contain multiple items.
+ * As items are added, their x-y coordinates are divided by the cell size, rounding toward negative infinity, yielding the 
+ * column and row of their grid square.  These are interleaved into a long integer, for use as a key in a HashMap.  Each key 
+ * represents an entire grid square, which can contain multiple items.  Negative coordinates are supported, and any column and 
+ * row in the int range gets its own key, so squares never collide.
+ * 
+ * queryRect and queryRadius look only in the squares their area overlaps, test each item there against the area using the 
+ * item's own coordinates, and hand each match to a callback rather than building a list.  Items are expected to be added at 
+ * their own x-y coordinates.
+ * 
+ * The square of each item is remembered, so items can be removed, and moved ones rebinned, without searching the grid.  move 
+ * and updateAll only touch the HashMap when an item has crossed into another square, so an update costs time in proportion 
+ * to the items that moved, not to every item in the map.
  *  
  * @author John McCullock
  * @version 1.0 2019-01-16
@@ -22,6 +35,11 @@ public class SpatialHashMap<T extends Point2D.Double>
 {
 	private HashMap<Long, ArrayList<T>> mDataMap = new HashMap<Long, ArrayList<T>>();
 	private int mCellSize = 0;
+	/*
+	 * Key of the square each item is in.  Point2D.Double hashes by its coordinates, which change as items move, so items are
+	 * matched by identity.
+	 */
+	private IdentityHashMap<T, Long> mLocations = new IdentityHashMap<T, Long>();
 	
 	/**
 	 * 
@@ -38,35 +56,291 @@ public class SpatialHashMap<T extends Point2D.Double>
 	
 	private long getKey(long x, long y)
 	{
-		if(x < 0 || y < 0){
-			throw new IllegalArgumentException("X and Y parameters cannot be negative.");
+		return Morton.encode(this.getCell(x), this.getCell(y));
+	}
+	
+	private long getKey(double x, double y)
+	{
+		return this.getKey((long)Math.floor(x), (long)Math.floor(y));
+	}
+	
+	/*
+	 * Returns the index of the column or row holding coordinate.  floorDiv keeps cells the same width on both sides of zero,
+	 * where plain division would put -cellSize + 1 to cellSize - 1 all in cell 0.
+	 */
+	private int getCell(long coordinate)
+	{
+		long cell = Math.floorDiv(coordinate, (long)this.mCellSize);
+		if(cell < Integer.MIN_VALUE || cell > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Coordinate " + coordinate + " is outside the grid.");
 		}
-		long xp = (long)Math.round((x / this.mCellSize) * this.mCellSize);
-		long yp = (long)Math.round((y / this.mCellSize) * this.mCellSize);
-		return Cantor.encode(xp, yp);
+		return (int)cell;
+	}
+	
+	/*
+	 * Query areas may reach past the grid, where no item can be, so rather than failing this clamps to the edge, which the
+	 * double to int conversion does by itself.
+	 */
+	private int getCell(double coordinate)
+	{
+		return (int)Math.floor(coordinate / this.mCellSize);
 	}
 	
+	/**
+	 * Adds item to the square holding x, y.  An item already in the map is moved there instead of being added twice.
+	 * @param x
+	 * @param y
+	 * @param item
+	 */
 	public void add(long x, long y, T item)
 	{
+		if(item == null){
+			throw new IllegalArgumentException("item parameter cannot be null.");
+		}
 		long key = this.getKey(x, y);
-		if(!this.mDataMap.containsKey(key)){
-			this.mDataMap.put(key, new ArrayList<T>());
+		Long oldKey = this.mLocations.get(item);
+		if(oldKey != null){
+			if(oldKey.longValue() == key){
+				return;
+			}
+			this.unbin(oldKey, item);
+		}
+		this.bin(key, item);
+		return;
+	}
+	
+	/**
+	 * Removes item from the map.
+	 * @param item
+	 * @return true if item was in the map.
+	 */
+	public boolean remove(T item)
+	{
+		if(item == null){
+			throw new IllegalArgumentException("item parameter cannot be null.");
+		}
+		Long key = this.mLocations.remove(item);
+		if(key == null){
+			return false;
+		}
+		this.removeFromCell(key, item);
+		return true;
+	}
+	
+	/**
+	 * Sets the location of item to newX, newY, and moves it to another square only if it has left its old one.
+	 * @param item
+	 * @param newX
+	 * @param newY
+	 */
+	public void move(T item, double newX, double newY)
+	{
+		if(item == null){
+			throw new IllegalArgumentException("item parameter cannot be null.");
+		}
+		Long oldKey = this.mLocations.get(item);
+		if(oldKey == null){
+			throw new IllegalArgumentException("item parameter is not in the map.");
+		}
+		long key = this.getKey(newX, newY);
+		item.setLocation(newX, newY);
+		if(oldKey.longValue() != key){
+			this.unbin(oldKey, item);
+			this.bin(key, item);
+		}
+		return;
+	}
+	
+	/**
+	 * Rebins, in one pass, items whose locations were changed directly.  Only items that have crossed into another square 
+	 * touch the HashMap.  Items not yet in the map are added at their own locations.
+	 * @param items the items that may have moved.
+	 * @return the number of items which changed squares or were added.
+	 */
+	public int updateAll(Collection<? extends T> items)
+	{
+		if(items == null){
+			throw new IllegalArgumentException("items parameter cannot be null.");
+		}
+		int count = 0;
+		for(T item : items)
+		{
+			long key = this.getKey(item.x, item.y);
+			Long oldKey = this.mLocations.get(item);
+			if(oldKey != null && oldKey.longValue() == key){
+				continue;
+			}
+			if(oldKey != null){
+				this.unbin(oldKey, item);
+			}
+			this.bin(key, item);
+			count++;
+		}
+		return count;
+	}
+	
+	public int size()
+	{
+		return this.mLocations.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mLocations.isEmpty();
+	}
+	
+	public void clear()
+	{
+		this.mDataMap.clear();
+		this.mLocations.clear();
+		return;
+	}
+	
+	private void bin(long key, T item)
+	{
+		ArrayList<T> cell = this.mDataMap.get(key);
+		if(cell == null){
+			cell = new ArrayList<T>();
+			this.mDataMap.put(key, cell);
+		}
+		cell.add(item);
+		this.mLocations.put(item, key);
+		return;
+	}
+	
+	private void unbin(long key, T item)
+	{
+		this.mLocations.remove(item);
+		this.removeFromCell(key, item);
+		return;
+	}
+	
+	/*
+	 * Order within a square doesn't matter, so the last item fills the gap instead of shifting the rest down.  Empty squares 
+	 * are dropped so the map only holds occupied ones.
+	 */
+	private void removeFromCell(long key, T item)
+	{
+		ArrayList<T> cell = this.mDataMap.get(key);
+		int last = cell.size() - 1;
+		for(int i = 0; i <= last; i++)
+		{
+			if(cell.get(i) == item){
+				cell.set(i, cell.get(last));
+				cell.remove(last);
+				break;
+			}
+		}
+		if(cell.isEmpty()){
+			this.mDataMap.remove(key);
 		}
-		this.mDataMap.get(key).add(item);
 		return;
 	}
 	
 	public ArrayList<T> search(long x, long y)
 	{
-		ArrayList<T> results = new ArrayList<T>();
 		long key = this.getKey(x, y);
 		ArrayList<T> recordSet = this.mDataMap.get(key);
-		if(recordSet != null){
-			for(T item : recordSet)
+		return recordSet == null ? new ArrayList<T>() : new ArrayList<T>(recordSet);
+	}
+	
+	/**
+	 * Passes each item inside the rectangle, edges included, to consumer.
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param consumer
+	 * @return the number of items found.
+	 */
+	public int queryRect(double minX, double minY, double maxX, double maxY, Consumer<? super T> consumer)
+	{
+		if(consumer == null){
+			throw new IllegalArgumentException("consumer parameter cannot be null.");
+		}
+		if(minX > maxX || minY > maxY){
+			throw new IllegalArgumentException("Minimum coordinates cannot be greater than maximum coordinates.");
+		}
+		return this.query(minX, minY, maxX, maxY, 0.0, 0.0, -1.0, consumer);
+	}
+	
+	/**
+	 * Passes each item within radius of x, y to consumer.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param consumer
+	 * @return the number of items found.
+	 */
+	public int queryRadius(double x, double y, double radius, Consumer<? super T> consumer)
+	{
+		if(consumer == null){
+			throw new IllegalArgumentException("consumer parameter cannot be null.");
+		}
+		if(radius < 0.0){
+			throw new IllegalArgumentException("radius parameter cannot be negative.");
+		}
+		return this.query(x - radius, y - radius, x + radius, y + radius, x, y, radius * radius, consumer);
+	}
+	
+	/*
+	 * Visits the squares overlapping the bounding box, testing items against the box, or against the circle around centerX,
+	 * centerY if radiusSq isn't negative.  When the box covers more squares than the map holds, it's cheaper to go through the
+	 * occupied squares and decode their keys instead.
+	 */
+	private int query(double minX, double minY, double maxX, double maxY, double centerX, double centerY, double radiusSq, 
+			Consumer<? super T> consumer)
+	{
+		int minColumn = this.getCell(minX);
+		int minRow = this.getCell(minY);
+		int maxColumn = this.getCell(maxX);
+		int maxRow = this.getCell(maxY);
+		long columns = (long)maxColumn - minColumn + 1L;
+		long rows = (long)maxRow - minRow + 1L;
+		int count = 0;
+		if(columns > this.mDataMap.size() / rows){
+			for(Map.Entry<Long, ArrayList<T>> entry : this.mDataMap.entrySet())
+			{
+				long key = entry.getKey();
+				int column = Morton.decodeX(key);
+				int row = Morton.decodeY(key);
+				if(column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow){
+					count += this.visit(entry.getValue(), minX, minY, maxX, maxY, centerX, centerY, radiusSq, consumer);
+				}
+			}
+		}else{
+			for(long column = minColumn; column <= maxColumn; column++)
 			{
-				results.add(item);
+				for(long row = minRow; row <= maxRow; row++)
+				{
+					ArrayList<T> cell = this.mDataMap.get(Morton.encode((int)column, (int)row));
+					if(cell != null){
+						count += this.visit(cell, minX, minY, maxX, maxY, centerX, centerY, radiusSq, consumer);
+					}
+				}
+			}
+		}
+		return count;
+	}
+	
+	private int visit(ArrayList<T> cell, double minX, double minY, double maxX, double maxY, double centerX, double centerY, 
+			double radiusSq, Consumer<? super T> consumer)
+	{
+		int count = 0;
+		for(int i = 0; i < cell.size(); i++)
+		{
+			T item = cell.get(i);
+			boolean inside = false;
+			if(radiusSq < 0.0){
+				inside = item.x >= minX && item.x <= maxX && item.y >= minY && item.y <= maxY;
+			}else{
+				inside = item.distanceSq(centerX, centerY) <= radiusSq;
+			}
+			if(inside){
+				consumer.accept(item);
+				count++;
 			}
 		}
-		return results;
+		return count;
 	}
 }
@@ -0,0 +1,341 @@
+package splayTree2;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded, ordered in-process cache built on SplayTree.  Lookups splay, so recently used keys sit near the root and are found
+ * quickly, and entries stay sorted, so the cache can also answer range queries.
+ *
+ * Each entry has a weight, 1 unless a Weigher is given.  Whenever the total goes over the maximum, least-recently used entries
+ * are evicted until it fits again.  An entry heavier than the maximum on its own is never cached.  Recency is tracked exactly,
+ * with a doubly-linked list through the entries: a hit moves its entry to the tail, and eviction takes from the head.  The
+ * list costs two references per entry but makes every eviction O(1) to find, where hunting for the deepest node in the tree
+ * would not be.
+ *
+ * If a loader is given, get calls it on a miss and caches the result.  Hits, misses and evictions are counted.
+ *
+ * Like SplayTree, this class is not thread-safe.
+ *
+ * @author John McCullock
+ *
+ * @param <K>
+ * @param <V>
+ * @version 1.0 2019-02-06
+ */
+public class SplayCache<K extends Comparable<K>, V>
+{
+	private SplayTree<K, Entry<K, V>> mTree = new SplayTree<K, Entry<K, V>>();
+	private long mMaxWeight = 0L;
+	private long mWeight = 0L;
+	private Weigher<K, V> mWeigher = null;
+	private Function<? super K, ? extends V> mLoader = null;
+	/*
+	 * Least-recently used entry at the head, most recent at the tail.
+	 */
+	private Entry<K, V> mHead = null;
+	private Entry<K, V> mTail = null;
+	private long mHits = 0L;
+	private long mMisses = 0L;
+	private long mEvictions = 0L;
+	
+	/**
+	 * @param maxEntries number of entries to keep.
+	 */
+	public SplayCache(long maxEntries)
+	{
+		this(maxEntries, null, null);
+		return;
+	}
+	
+	/**
+	 * @param maxWeight total weight of the entries to keep.
+	 * @param weigher gives the weight of each entry, or null to count every entry as 1.
+	 * @param loader computes the value for a key get can't find, or null to return null on a miss.
+	 */
+	public SplayCache(long maxWeight, Weigher<K, V> weigher, Function<? super K, ? extends V> loader)
+	{
+		if(maxWeight < 1L){
+			throw new IllegalArgumentException("maxWeight parameter cannot be less than one.");
+		}
+		this.mMaxWeight = maxWeight;
+		this.mWeigher = weigher;
+		this.mLoader = loader;
+		return;
+	}
+	
+	/**
+	 * Returns the value cached for key, marking it most recently used.  On a miss, the loader, if there is one, is asked for the
+	 * value, which is then cached.
+	 * @param key
+	 * @return V, or null if key isn't cached and couldn't be loaded.
+	 */
+	public V get(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		Entry<K, V> e = this.mTree.isEmpty() ? null : this.mTree.get(key);
+		if(e != null){
+			this.mHits++;
+			this.moveToTail(e);
+			return e.value;
+		}
+		this.mMisses++;
+		if(this.mLoader == null){
+			return null;
+		}
+		V value = this.mLoader.apply(key);
+		if(value != null){
+			this.put(key, value);
+		}
+		return value;
+	}
+	
+	/**
+	 * Returns the value cached for key without loading it, or counting a hit or miss.  Still marks it most recently used.
+	 * @param key
+	 * @return V
+	 */
+	public V getIfPresent(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		Entry<K, V> e = this.mTree.isEmpty() ? null : this.mTree.get(key);
+		if(e == null){
+			return null;
+		}
+		this.moveToTail(e);
+		return e.value;
+	}
+	
+	/**
+	 * Returns true if key is cached.  Doesn't change recency or the tree.
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		return this.mTree.peek(key) != null;
+	}
+	
+	/**
+	 * Caches value for key, marking it most recently used, then evicts until the total weight fits.  If the entry alone weighs
+	 * more than the maximum, it isn't cached, and any value already cached for key is removed, but nothing else is evicted.
+	 * @param key
+	 * @param value
+	 */
+	public void put(K key, V value)
+	{
+		if(key == null || value == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		long weight = this.mWeigher == null ? 1L : this.mWeigher.weigh(key, value);
+		if(weight < 0L){
+			throw new IllegalArgumentException("Weigher returned a negative weight for " + key + ".");
+		}
+		if(weight > this.mMaxWeight){
+			this.remove(key);
+			return;
+		}
+		Entry<K, V> e = new Entry<K, V>(key, value, weight);
+		Entry<K, V> existing = this.mTree.putIfAbsent(key, e);
+		if(existing != null){
+			this.mWeight += weight - existing.weight;
+			existing.value = value;
+			existing.weight = weight;
+			this.moveToTail(existing);
+		}else{
+			this.mWeight += weight;
+			this.linkTail(e);
+		}
+		this.evict();
+		return;
+	}
+	
+	public void remove(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		Entry<K, V> e = this.mTree.peek(key);
+		if(e == null){
+			return;
+		}
+		this.mTree.remove(key);
+		this.unlink(e);
+		this.mWeight -= e.weight;
+		return;
+	}
+	
+	private void evict()
+	{
+		while(this.mWeight > this.mMaxWeight && this.mHead != null)
+		{
+			Entry<K, V> e = this.mHead;
+			this.mTree.remove(e.key);
+			this.unlink(e);
+			this.mWeight -= e.weight;
+			this.mEvictions++;
+		}
+		return;
+	}
+	
+	/**
+	 * Returns the cached keys from low to high inclusive, in ascending order.  Doesn't change recency.
+	 * @param low
+	 * @param high
+	 * @return List
+	 */
+	public List<K> keyList(K low, K high)
+	{
+		return this.mTree.keyList(low, high);
+	}
+	
+	/**
+	 * Returns an iterator over the cached keys from low to high inclusive, in ascending order.  Doesn't change recency, but any
+	 * get or put ends the iteration, since they splay.
+	 * @param low
+	 * @param high
+	 * @return Iterator
+	 */
+	public Iterator<K> rangeIterator(K low, K high)
+	{
+		return this.mTree.rangeIterator(low, high);
+	}
+	
+	public List<K> keyList()
+	{
+		return this.mTree.keyList();
+	}
+	
+	public int size()
+	{
+		return this.mTree.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mTree.isEmpty();
+	}
+	
+	public long weight()
+	{
+		return this.mWeight;
+	}
+	
+	public long getMaxWeight()
+	{
+		return this.mMaxWeight;
+	}
+	
+	public long getHitCount()
+	{
+		return this.mHits;
+	}
+	
+	public long getMissCount()
+	{
+		return this.mMisses;
+	}
+	
+	public long getEvictionCount()
+	{
+		return this.mEvictions;
+	}
+	
+	/**
+	 * Returns the share of get calls which were hits, or 0 if there were none.
+	 * @return double
+	 */
+	public double getHitRatio()
+	{
+		long total = this.mHits + this.mMisses;
+		return total == 0L ? 0.0 : (double)this.mHits / total;
+	}
+	
+	/**
+	 * Removes every entry.  The hit, miss and eviction counts are kept.
+	 */
+	public void clear()
+	{
+		this.mTree.clear();
+		this.mHead = null;
+		this.mTail = null;
+		this.mWeight = 0L;
+		return;
+	}
+	
+	private void moveToTail(Entry<K, V> e)
+	{
+		if(e == this.mTail){
+			return;
+		}
+		this.unlink(e);
+		this.linkTail(e);
+		return;
+	}
+	
+	private void linkTail(Entry<K, V> e)
+	{
+		e.prev = this.mTail;
+		e.next = null;
+		if(this.mTail == null){
+			this.mHead = e;
+		}else{
+			this.mTail.next = e;
+		}
+		this.mTail = e;
+		return;
+	}
+	
+	private void unlink(Entry<K, V> e)
+	{
+		if(e.prev == null){
+			this.mHead = e.next;
+		}else{
+			e.prev.next = e.next;
+		}
+		if(e.next == null){
+			this.mTail = e.prev;
+		}else{
+			e.next.prev = e.prev;
+		}
+		e.prev = null;
+		e.next = null;
+		return;
+	}
+	
+	/**
+	 * Gives the weight of an entry, in whatever unit the cache's maximum weight uses.
+	 * @param <K>
+	 * @param <V>
+	 */
+	public interface Weigher<K, V>
+	{
+		long weigh(K key, V value);
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class Entry<K, V>
+	{
+		public K key = null;
+		public V value = null;
+		public long weight = 0L;
+		public Entry<K, V> prev = null;
+		public Entry<K, V> next = null;
+		
+		public Entry(K key, V value, long weight)
+		{
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			return;
+		}
+	}
+}
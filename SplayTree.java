@@ -1,9 +1,13 @@
 package splayTree2;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Implements a top-down splay tree. "Splaying" a tree is an operation which rotates a node to the root position. The idea is to 
@@ -12,6 +16,9 @@ import java.util.List;
  * Splay trees have found a lot of use in environments where only 20% of data is being searched for 80% of the time, 
  * which is pretty common.
  * 
+ * Since reads splay too, every lookup normally restructures the tree.  setSplayProbability lets reads splay only some of the
+ * time and leave the tree alone otherwise.  peek never splays.
+ * 
  * Based on article and code by Danny Sleator found at http://www.link.cs.cmu.edu/splay/
  * @author John McCullock
  * 
@@ -19,23 +26,78 @@ import java.util.List;
  * @param <V>
  * @version 1.0 2019-02-06
  */
-public class SplayTree<K extends Comparable<K>, V>
+public class SplayTree<K extends Comparable<K>, V> implements Iterable<K>
 {
+	private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+	
 	private Node<K, V> mRoot = null;
+	/*
+	 * -1 once split or removeRange has cut off a subtree of unknown size, so that they needn't walk it.  size() counts the
+	 * nodes again when next asked.
+	 */
 	private int mSize = 0;
+	private double mSplayProbability = 1.0;
+	/*
+	 * State for the xorshift generator deciding which reads splay.  Cheaper than java.util.Random, which is thread-safe.
+	 */
+	private long mSeed = System.nanoTime() | 1L;
+	/*
+	 * Counts changes to the tree's shape, so iterators can tell their stacks have gone stale.
+	 */
+	private int mModCount = 0;
+	/*
+	 * Only allocated while profiling is on, so an unprofiled splay pays a single null check.
+	 */
+	private Profile mProfile = null;
 	
 	public void put(K key, V value)
+	{
+		this.insert(key, value, false);
+		return;
+	}
+	
+	/**
+	 * Adds key with value, or replaces the value if key is already present, with a single splay either way.
+	 * @param key
+	 * @param value
+	 * @return true if key was already present.
+	 */
+	public boolean putOrReplace(K key, V value)
+	{
+		return this.insert(key, value, true) != null;
+	}
+	
+	/**
+	 * Adds key with value unless key is already present, with a single splay either way.
+	 * @param key
+	 * @param value
+	 * @return the value already held for key, or null if value was added.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		Node<K, V> n = this.insert(key, value, false);
+		return n == null ? null : n.value;
+	}
+	
+	/*
+	 * Returns the node which already held key, after replacing its value if asked to, or null if a new node was added.
+	 */
+	private Node<K, V> insert(K key, V value, boolean replace)
 	{
 		if(this.mRoot == null){
 			this.mRoot = new Node<K, V>(key, value);
 			this.mSize = 1;
-			return;
+			this.mModCount++;
+			return null;
 		}
 		
 		this.splay(key);
 		
 		if(key.compareTo(this.mRoot.key) == 0){
-			return;
+			if(replace){
+				this.mRoot.value = value;
+			}
+			return this.mRoot;
 		}
 		
 		Node<K, V> n = new Node<K, V>(key, value);
@@ -49,15 +111,270 @@ public class SplayTree<K extends Comparable<K>, V>
 			this.mRoot.right = null;
 		}
 		this.mRoot = n;
-		this.mSize++;
+		if(this.mSize >= 0){
+			this.mSize++;
+		}
+		return null;
+	}
+	
+	/**
+	 * Sets the chance that a call to get or containsKey splays.  At 1.0, the default, every read splays, so the key read last
+	 * is always at the root.  Lower values splay a random share of reads and leave the tree untouched on the rest.  Keys read
+	 * often are still splayed often, so they stay near the root, while most reads avoid the writes.  At 0.0 reads never
+	 * restructure the tree.
+	 * @param probability from 0.0 to 1.0.
+	 */
+	public void setSplayProbability(double probability)
+	{
+		if(!(probability >= 0.0 && probability <= 1.0)){
+			throw new IllegalArgumentException("probability parameter must be from 0.0 to 1.0.");
+		}
+		this.mSplayProbability = probability;
+		return;
+	}
+	
+	public double getSplayProbability()
+	{
+		return this.mSplayProbability;
+	}
+	
+	private boolean shouldSplay()
+	{
+		if(this.mSplayProbability >= 1.0){
+			return true;
+		}else if(this.mSplayProbability <= 0.0){
+			return false;
+		}
+		long x = this.mSeed;
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		this.mSeed = x;
+		return (x >>> 11) * DOUBLE_UNIT < this.mSplayProbability;
+	}
+	
+	/**
+	 * Starts or stops recording statistics about each splay.  Starting always begins from empty counts.
+	 * @param enabled
+	 */
+	public void setProfiling(boolean enabled)
+	{
+		this.mProfile = enabled ? new Profile() : null;
+		return;
+	}
+	
+	/**
+	 * Returns the statistics recorded since profiling started or was last reset, or null if profiling is off.
+	 * @return Profile
+	 */
+	public Profile getProfile()
+	{
+		return this.mProfile;
+	}
+	
+	/**
+	 * Builds a balanced tree from keys in strictly ascending order in O(n) time.
+	 * @param keys in strictly ascending order.
+	 * @param values matching keys by position.
+	 * @return SplayTree
+	 */
+	public static <K extends Comparable<K>, V> SplayTree<K, V> fromSorted(List<K> keys, List<V> values)
+	{
+		if(keys == null || values == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(keys.size() != values.size()){
+			throw new IllegalArgumentException("keys and values must be the same size.");
+		}
+		ArrayList<K> keyArray = new ArrayList<K>(keys);
+		ArrayList<V> valueArray = new ArrayList<V>(values);
+		for(int i = 0; i < keyArray.size(); i++)
+		{
+			if(keyArray.get(i) == null){
+				throw new IllegalArgumentException("Keys cannot be null.");
+			}
+			if(i > 0 && keyArray.get(i - 1).compareTo(keyArray.get(i)) >= 0){
+				throw new IllegalArgumentException("Keys must be in strictly ascending order.");
+			}
+		}
+		SplayTree<K, V> tree = new SplayTree<K, V>();
+		tree.mRoot = tree.build(keyArray, valueArray, 0, keyArray.size() - 1);
+		tree.mSize = keyArray.size();
+		return tree;
+	}
+	
+	private Node<K, V> build(ArrayList<K> keys, ArrayList<V> values, int low, int high)
+	{
+		if(low > high){
+			return null;
+		}
+		int mid = (low + high) >>> 1;
+		Node<K, V> n = new Node<K, V>(keys.get(mid), values.get(mid));
+		n.left = this.build(keys, values, low, mid - 1);
+		n.right = this.build(keys, values, mid + 1, high);
+		return n;
+	}
+	
+	/**
+	 * Relinks the existing nodes into a perfectly balanced tree in O(n) time.  The nodes are gathered in one in-order pass
+	 * and reused, so nothing is copied.
+	 */
+	public void rebuild()
+	{
+		ArrayList<Node<K, V>> nodes = new ArrayList<Node<K, V>>(this.mSize > 0 ? this.mSize : 16);
+		ArrayDeque<Node<K, V>> stack = new ArrayDeque<Node<K, V>>();
+		Node<K, V> n = this.mRoot;
+		while(n != null || !stack.isEmpty())
+		{
+			while(n != null)
+			{
+				stack.push(n);
+				n = n.left;
+			}
+			n = stack.pop();
+			nodes.add(n);
+			n = n.right;
+		}
+		this.mRoot = this.link(nodes, 0, nodes.size() - 1);
+		this.mSize = nodes.size();
+		this.mModCount++;
 		return;
 	}
 	
+	private Node<K, V> link(ArrayList<Node<K, V>> nodes, int low, int high)
+	{
+		if(low > high){
+			return null;
+		}
+		int mid = (low + high) >>> 1;
+		Node<K, V> n = nodes.get(mid);
+		n.left = this.link(nodes, low, mid - 1);
+		n.right = this.link(nodes, mid + 1, high);
+		return n;
+	}
+	
+	/*
+	 * Plain binary search tree insert and delete, for AdaptiveSplayTree while it keeps the tree balanced.  Neither splays, so
+	 * the tree keeps its shape apart from the one node added or removed.  Both return the number of nodes visited.
+	 */
+	int putByDescent(K key, V value)
+	{
+		if(this.mRoot == null){
+			this.mRoot = new Node<K, V>(key, value);
+			this.mSize = 1;
+			this.mModCount++;
+			return 0;
+		}
+		Node<K, V> n = this.mRoot;
+		int depth = 1;
+		while(true)
+		{
+			int comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				n.value = value;
+				return depth;
+			}
+			Node<K, V> next = comparison < 0 ? n.left : n.right;
+			if(next == null){
+				if(comparison < 0){
+					n.left = new Node<K, V>(key, value);
+				}else{
+					n.right = new Node<K, V>(key, value);
+				}
+				break;
+			}
+			n = next;
+			depth++;
+		}
+		if(this.mSize >= 0){
+			this.mSize++;
+		}
+		this.mModCount++;
+		return depth;
+	}
+	
+	int removeByDescent(K key)
+	{
+		Node<K, V> parent = null;
+		Node<K, V> n = this.mRoot;
+		int depth = 0;
+		while(n != null)
+		{
+			depth++;
+			int comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				break;
+			}
+			parent = n;
+			n = comparison < 0 ? n.left : n.right;
+		}
+		if(n == null){
+			return depth;
+		}
+		Node<K, V> replacement = null;
+		if(n.left == null){
+			replacement = n.right;
+		}else if(n.right == null){
+			replacement = n.left;
+		}else{
+			// Unlink the successor and put it in n's place.
+			Node<K, V> successorParent = n;
+			Node<K, V> successor = n.right;
+			while(successor.left != null)
+			{
+				successorParent = successor;
+				successor = successor.left;
+				depth++;
+			}
+			if(successorParent != n){
+				successorParent.left = successor.right;
+				successor.right = n.right;
+			}
+			successor.left = n.left;
+			replacement = successor;
+		}
+		if(parent == null){
+			this.mRoot = replacement;
+		}else if(parent.left == n){
+			parent.left = replacement;
+		}else{
+			parent.right = replacement;
+		}
+		if(this.mSize > 0){
+			this.mSize--;
+		}
+		this.mModCount++;
+		return depth;
+	}
+	
+	/**
+	 * Replaces the value of key, if present.  Unlike put, which leaves an existing key's value alone.
+	 * @param key
+	 * @param value
+	 * @return the previous value, or null if key wasn't found.
+	 */
+	public V replace(K key, V value)
+	{
+		if(this.mRoot == null){
+			return null;
+		}
+		this.splay(key);
+		if(this.mRoot.key.compareTo(key) != 0){
+			return null;
+		}
+		V old = this.mRoot.value;
+		this.mRoot.value = value;
+		return old;
+	}
+	
 	public V get(K key)
 	{
 		if(this.mRoot == null){
 			return null;
 		}
+		if(!this.shouldSplay()){
+			return this.peek(key);
+		}
 		this.splay(key);
 		if(this.mRoot.key.compareTo(key) != 0){
 			return null;
@@ -70,6 +387,9 @@ public class SplayTree<K extends Comparable<K>, V>
 		if(this.mRoot == null){
 			return false;
 		}
+		if(!this.shouldSplay()){
+			return this.find(key, Integer.MAX_VALUE) != null;
+		}
 		this.splay(key);
 		if(this.mRoot.key.compareTo(key) != 0){
 			return false;
@@ -77,63 +397,276 @@ public class SplayTree<K extends Comparable<K>, V>
 		return true;
 	}
 	
+	/**
+	 * Looks up key without splaying, so the tree is left exactly as it was.
+	 * @param key
+	 * @return V
+	 */
+	public V peek(K key)
+	{
+		return this.peek(key, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Non-splaying lookups for use by ConcurrentSplayTree, which may run them while a write is in progress.  Such a read
+	 * could lead anywhere, so the walk gives up with an IllegalStateException after maxSteps nodes.
+	 */
+	V peek(K key, int maxSteps)
+	{
+		Node<K, V> n = this.find(key, maxSteps);
+		return n == null ? null : n.value;
+	}
+	
+	boolean peekContainsKey(K key, int maxSteps)
+	{
+		return this.find(key, maxSteps) != null;
+	}
+	
+	private Node<K, V> find(K key, int maxSteps)
+	{
+		int steps = 0;
+		Node<K, V> n = this.mRoot;
+		while(n != null)
+		{
+			if(++steps > maxSteps){
+				throw new IllegalStateException("Lookup exceeded " + maxSteps + " steps.");
+			}
+			int comparison = key.compareTo(n.key);
+			if(comparison == 0){
+				return n;
+			}
+			n = comparison < 0 ? n.left : n.right;
+		}
+		return null;
+	}
+	
 	public boolean isEmpty()
 	{
 		return this.mRoot == null;
 	}
 	
+	/**
+	 * Returns the number of entries.  O(1), except for the first call after split or removeRange, which counts the nodes in
+	 * O(n) time.
+	 * @return int
+	 */
 	public int size()
 	{
+		if(this.mSize < 0){
+			this.mSize = this.count(this.mRoot);
+		}
 		return this.mSize;
 	}
 	
+	/*
+	 * Iterative, since a splay tree can be as deep as it is large.
+	 */
+	private int count(Node<K, V> root)
+	{
+		int count = 0;
+		ArrayDeque<Node<K, V>> stack = new ArrayDeque<Node<K, V>>();
+		if(root != null){
+			stack.push(root);
+		}
+		while(!stack.isEmpty())
+		{
+			Node<K, V> n = stack.pop();
+			count++;
+			if(n.left != null){
+				stack.push(n.left);
+			}
+			if(n.right != null){
+				stack.push(n.right);
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns an iterator over the keys in ascending order.  It walks the tree with an explicit stack, so nothing is copied and
+	 * degenerate trees can't overflow the call stack.  Any call which splays, including get, ends the iteration with a
+	 * ConcurrentModificationException.
+	 */
+	@Override
+	public Iterator<K> iterator()
+	{
+		final NodeIterator it = new NodeIterator(null, null);
+		return new Iterator<K>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public K next()
+			{
+				return it.nextNode().key;
+			}
+		};
+	}
+	
+	/**
+	 * Returns an iterator over the keys from low to high inclusive, in ascending order.  Subtrees outside the range are never
+	 * visited.
+	 * @param low
+	 * @param high
+	 * @return Iterator
+	 */
+	public Iterator<K> rangeIterator(K low, K high)
+	{
+		if(low == null || high == null){
+			throw new IllegalArgumentException("Key arguments cannot be null.");
+		}
+		final NodeIterator it = new NodeIterator(low, high);
+		return new Iterator<K>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public K next()
+			{
+				return it.nextNode().key;
+			}
+		};
+	}
+	
+	/**
+	 * Returns an iterator over the values in ascending order of their keys.
+	 * @return Iterator
+	 */
+	public Iterator<V> valueIterator()
+	{
+		final NodeIterator it = new NodeIterator(null, null);
+		return new Iterator<V>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public V next()
+			{
+				return it.nextNode().value;
+			}
+		};
+	}
+	
 	public List<K> keyList()
 	{
 		List<K> list = new LinkedList<K>();
-		this.keyList(this.mRoot, list);
+		for(K key : this)
+		{
+			list.add(key);
+		}
 		return list;
 	}
 	
-	private void keyList(Node<K, V> root, List<K> list)
+	/**
+	 * Returns the keys from low to high inclusive, in ascending order.  Subtrees outside the range are skipped.
+	 * @param low
+	 * @param high
+	 * @return List
+	 */
+	public List<K> keyList(K low, K high)
 	{
-		if(root == null){
-			return;
+		List<K> list = new LinkedList<K>();
+		Iterator<K> it = this.rangeIterator(low, high);
+		while(it.hasNext())
+		{
+			list.add(it.next());
 		}
-		
-		this.keyList(root.left, list);
-		list.add(root.key);
-		this.keyList(root.right, list);
-		return;
+		return list;
 	}
 	
 	public Collection<V> values()
 	{
 		ArrayList<V> col = new ArrayList<V>();
-		this.valueCollection(this.mRoot, col);
+		Iterator<V> it = this.valueIterator();
+		while(it.hasNext())
+		{
+			col.add(it.next());
+		}
 		return col;
 	}
 	
-	private void valueCollection(Node<K, V> root, Collection<V> col)
+	/**
+	 * Returns the largest key less than or equal to key, or null if there is none.  The splay leaves key, or a neighbor of it,
+	 * at the root, so the answer is either the root or the largest key in its left subtree.
+	 * @param key
+	 * @return K
+	 */
+	public K floor(K key)
 	{
-		if(root == null){
-			return;
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
 		}
-		
-		this.valueCollection(root.left, col);
-		col.add(root.value);
-		this.valueCollection(root.right, col);
-		return;
+		if(this.mRoot == null){
+			return null;
+		}
+		this.splay(key);
+		if(this.mRoot.key.compareTo(key) <= 0){
+			return this.mRoot.key;
+		}
+		Node<K, V> n = this.mRoot.left;
+		if(n == null){
+			return null;
+		}
+		while(n.right != null)
+		{
+			n = n.right;
+		}
+		return n.key;
+	}
+	
+	/**
+	 * Returns the smallest key greater than or equal to key, or null if there is none.
+	 * @param key
+	 * @return K
+	 */
+	public K ceiling(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		if(this.mRoot == null){
+			return null;
+		}
+		this.splay(key);
+		if(this.mRoot.key.compareTo(key) >= 0){
+			return this.mRoot.key;
+		}
+		Node<K, V> n = this.mRoot.right;
+		if(n == null){
+			return null;
+		}
+		while(n.left != null)
+		{
+			n = n.left;
+		}
+		return n.key;
 	}
 	
 	public void clear()
 	{
 		this.mRoot = null;
 		this.mSize = 0;
+		this.mModCount++;
 		return;
 	}
 	
 	public void remove(K key)
 	{
+		if(this.mRoot == null){
+			return;
+		}
 		this.splay(key);
 		if(key.compareTo(this.mRoot.key) != 0){
 			// not found.
@@ -147,17 +680,135 @@ public class SplayTree<K extends Comparable<K>, V>
 			this.splay(key);
 			this.mRoot.right = x;
 		}
-		this.mSize = this.mSize - 1 < 0 ? 0 : this.mSize - 1;
+		if(this.mSize > 0){
+			this.mSize--;
+		}
+		return;
+	}
+	
+	/**
+	 * Moves every entry with a key greater than or equal to key into a new tree, which is returned.  One splay detaches the
+	 * whole upper part, so this takes O(log n) amortized time.  Neither tree's size is counted until size() is called.
+	 * @param key
+	 * @return SplayTree
+	 */
+	public SplayTree<K, V> split(K key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		SplayTree<K, V> upper = new SplayTree<K, V>();
+		if(this.mRoot == null){
+			return upper;
+		}
+		this.splay(key);
+		if(this.mRoot.key.compareTo(key) < 0){
+			upper.mRoot = this.mRoot.right;
+			this.mRoot.right = null;
+		}else{
+			upper.mRoot = this.mRoot;
+			this.mRoot = this.mRoot.left;
+			upper.mRoot.left = null;
+		}
+		upper.mSize = upper.mRoot == null ? 0 : -1;
+		this.mSize = this.mRoot == null ? 0 : -1;
+		return upper;
+	}
+	
+	/**
+	 * Moves every entry of other into this tree, leaving other empty.  Every key in other must be greater than every key in
+	 * this tree.  Takes O(log n) amortized time.
+	 * @param other
+	 */
+	public void join(SplayTree<K, V> other)
+	{
+		if(other == null){
+			throw new IllegalArgumentException("other parameter cannot be null.");
+		}
+		if(other == this || other.mRoot == null){
+			return;
+		}
+		if(this.mRoot != null){
+			// Bring other's smallest key to its root, then this tree's largest key below it to this root.
+			Node<K, V> min = other.mRoot;
+			while(min.left != null)
+			{
+				min = min.left;
+			}
+			other.splay(min.key);
+			this.splay(other.mRoot.key);
+			if(this.mRoot.key.compareTo(other.mRoot.key) >= 0 || this.mRoot.right != null){
+				throw new IllegalArgumentException("Keys in other must all be greater than keys in this tree.");
+			}
+			this.mRoot.right = other.mRoot;
+		}else{
+			this.mRoot = other.mRoot;
+			this.mModCount++;
+		}
+		this.mSize = this.mSize >= 0 && other.mSize >= 0 ? this.mSize + other.mSize : -1;
+		other.clear();
+		return;
+	}
+	
+	/**
+	 * Removes every entry with a key from low to high inclusive.  Two splays isolate the range as a single subtree, which is
+	 * dropped whole, so this takes O(log n) amortized time however many entries go.  The size isn't counted until size() is
+	 * called.
+	 * @param low
+	 * @param high
+	 */
+	public void removeRange(K low, K high)
+	{
+		if(low == null || high == null){
+			throw new IllegalArgumentException("Key arguments cannot be null.");
+		}
+		if(this.mRoot == null || low.compareTo(high) > 0){
+			return;
+		}
+		// Split off everything below low.
+		this.splay(low);
+		Node<K, V> below = null;
+		if(this.mRoot.key.compareTo(low) < 0){
+			below = this.mRoot;
+			this.mRoot = below.right;
+			below.right = null;
+		}else{
+			below = this.mRoot.left;
+			this.mRoot.left = null;
+		}
+		// Split what's left at high, dropping the part at or below it.
+		Node<K, V> above = null;
+		if(this.mRoot != null){
+			this.splay(high);
+			if(this.mRoot.key.compareTo(high) > 0){
+				above = this.mRoot;
+				above.left = null;
+			}else{
+				above = this.mRoot.right;
+			}
+		}
+		// Everything in below is less than everything in above, so splaying below at its largest key leaves room on the right.
+		this.mRoot = below;
+		if(this.mRoot == null){
+			this.mRoot = above;
+		}else{
+			this.splay(high);
+			this.mRoot.right = above;
+		}
+		this.mSize = this.mRoot == null ? 0 : -1;
 		return;
 	}
 	
 	private void splay(K key)
 	{
+		this.mModCount++;
 		Node<K, V> n = new Node<K, V>();
 		Node<K, V> leftChild = n;
 		Node<K, V> rightChild = n;
 		Node<K, V> leftParent = this.mRoot;
 		Node<K, V> rightParent = null;
+		int depth = 0;
+		int rotations = 0;
 		while(true)
 		{
 			if(key.compareTo(leftParent.key) < 0){
@@ -166,6 +817,8 @@ public class SplayTree<K extends Comparable<K>, V>
 				}
 				if(key.compareTo(leftParent.left.key) < 0){
 					/* Rotate right. */
+					depth++;
+					rotations++;
 					rightParent = leftParent.left;
 					leftParent.left = rightParent.right;
 					rightParent.right = leftParent;
@@ -175,6 +828,7 @@ public class SplayTree<K extends Comparable<K>, V>
 					}
 				}
 				/* Link right. */
+				depth++;
 				rightChild.left = leftParent;
 				rightChild = leftParent;
 				leftParent = leftParent.left;
@@ -184,6 +838,8 @@ public class SplayTree<K extends Comparable<K>, V>
 				}
 				if(key.compareTo(leftParent.right.key) > 0){
 					/* Rotate left. */
+					depth++;
+					rotations++;
 					rightParent = leftParent.right;
 					leftParent.right = rightParent.left;
 					rightParent.left = leftParent;
@@ -193,6 +849,7 @@ public class SplayTree<K extends Comparable<K>, V>
 					}
 				}
 				/* Link left. */
+				depth++;
 				leftChild.right = leftParent;
 				leftChild = leftParent;
 				leftParent = leftParent.right;
@@ -206,9 +863,152 @@ public class SplayTree<K extends Comparable<K>, V>
 		leftParent.left = n.right;
 		leftParent.right = n.left;
 		this.mRoot = leftParent;
+		if(this.mProfile != null){
+			this.mProfile.record(depth, rotations, leftParent.key.compareTo(key) == 0);
+		}
 		return;
 	}
 	
+	/**
+	 * Statistics on splays: how deep the key was, how many rotations it took, and whether it was found.
+	 * 
+	 * Depth is the best measure of whether splaying is paying off.  A skewed workload keeps its hot keys near the root, so most
+	 * splays are shallow and the histogram is heavy at the low end.  When accesses are spread evenly, splays average deeper
+	 * than a balanced tree's log2(n) and the rotations are wasted work.  Per-key counts are not kept, since they would grow
+	 * with the key space; the depth histogram shows the same skew in fixed space.
+	 */
+	public static class Profile
+	{
+		private static final int HISTOGRAM_SIZE = 64;
+		
+		private long mSplays = 0L;
+		private long mHits = 0L;
+		private long mTotalDepth = 0L;
+		private int mMaxDepth = 0;
+		private long mRotations = 0L;
+		private long[] mHistogram = new long[HISTOGRAM_SIZE];
+		
+		private void record(int depth, int rotations, boolean hit)
+		{
+			this.mSplays++;
+			if(hit){
+				this.mHits++;
+			}
+			this.mTotalDepth += depth;
+			this.mMaxDepth = Math.max(this.mMaxDepth, depth);
+			this.mRotations += rotations;
+			this.mHistogram[Math.min(depth, HISTOGRAM_SIZE - 1)]++;
+			return;
+		}
+		
+		public long getSplayCount()
+		{
+			return this.mSplays;
+		}
+		
+		/**
+		 * Returns the number of splays which found their key.
+		 * @return long
+		 */
+		public long getHitCount()
+		{
+			return this.mHits;
+		}
+		
+		public double getAverageDepth()
+		{
+			return this.mSplays == 0L ? 0.0 : (double)this.mTotalDepth / this.mSplays;
+		}
+		
+		public int getMaxDepth()
+		{
+			return this.mMaxDepth;
+		}
+		
+		public long getRotationCount()
+		{
+			return this.mRotations;
+		}
+		
+		public double getAverageRotations()
+		{
+			return this.mSplays == 0L ? 0.0 : (double)this.mRotations / this.mSplays;
+		}
+		
+		/**
+		 * Returns the number of splays at each depth.  The last slot also counts everything deeper.
+		 * @return long[]
+		 */
+		public long[] getDepthHistogram()
+		{
+			return this.mHistogram.clone();
+		}
+		
+		public void reset()
+		{
+			this.mSplays = 0L;
+			this.mHits = 0L;
+			this.mTotalDepth = 0L;
+			this.mMaxDepth = 0;
+			this.mRotations = 0L;
+			this.mHistogram = new long[HISTOGRAM_SIZE];
+			return;
+		}
+	}
+	
+	/*
+	 * In-order walk with an explicit stack holding the nodes whose left side is done, optionally bounded by low and high.
+	 */
+	private class NodeIterator
+	{
+		private ArrayDeque<Node<K, V>> mStack = new ArrayDeque<Node<K, V>>();
+		private K mHigh = null;
+		private int mExpectedModCount = 0;
+		
+		public NodeIterator(K low, K high)
+		{
+			this.mHigh = high;
+			this.mExpectedModCount = mModCount;
+			Node<K, V> n = mRoot;
+			while(n != null)
+			{
+				if(low == null || low.compareTo(n.key) <= 0){
+					this.mStack.push(n);
+					n = n.left;
+				}else{
+					n = n.right;
+				}
+			}
+			return;
+		}
+		
+		public boolean hasNext()
+		{
+			if(this.mStack.isEmpty()){
+				return false;
+			}
+			return this.mHigh == null || this.mStack.peek().key.compareTo(this.mHigh) <= 0;
+		}
+		
+		public Node<K, V> nextNode()
+		{
+			if(mModCount != this.mExpectedModCount){
+				throw new ConcurrentModificationException();
+			}
+			if(!this.hasNext()){
+				throw new NoSuchElementException();
+			}
+			Node<K, V> result = this.mStack.pop();
+			Node<K, V> n = result.right;
+			while(n != null)
+			{
+				this.mStack.push(n);
+				n = n.left;
+			}
+			return result;
+		}
+	}
+	
 	@SuppressWarnings("hiding")
 	private class Node<K extends Comparable<K>, V>
 	{
@@ -1,7 +1,14 @@
 package trie2;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Character-based trie implementation.  Primarily useful for auto-complete text functions.
@@ -18,53 +25,236 @@ public class Trie
 {
 	private Node mRoot = new Node();
 	private ArrayList<String> mBuffer = null;
+	/*
+	 * Built by compile and dropped whenever the trie changes.
+	 */
+	private State mAutomaton = null;
 	
 	public void add(String word)
 	{
 		if(word == null || word.length() <= 0){
 			return;
 		}
-		this.add(this.mRoot, word, 0);
+		add(this.mRoot, word, 0);
+		this.mAutomaton = null;
 		return;
 	}
 	
-	private void add(Node root, String word, int pos)
+	private static void add(Node root, String word, int pos)
 	{
 		pos = pos < 0 ? 0 : pos;
-		if(pos == word.length()){
-			root.words++;
-			return;
+		Node n = root;
+		for(; pos < word.length(); pos++)
+		{
+			n.prefixes++;
+			char k = word.charAt(pos);
+			Node child = n.children.get(k);
+			if(child == null){
+				child = new Node();
+				n.children.put(k, child);
+			}
+			n = child;
 		}
-		root.prefixes++;
-		char k = word.charAt(pos);
-		if(!root.children.containsKey(k)){
-			root.children.put(k, new Node());
+		n.words++;
+		return;
+	}
+	
+	/**
+	 * Builds a trie from words in ascending order (as by String.compareTo) in a single pass.  Each word reuses the path of
+	 * the word before it up to their common prefix, and every node past that point is known to be new, so no child lookups
+	 * are needed.  Null and empty words are skipped; duplicates are counted.
+	 * @param sortedWords
+	 * @return Trie
+	 * @throws IllegalArgumentException if the words are out of order.
+	 */
+	public static Trie fromSorted(Iterable<String> sortedWords)
+	{
+		if(sortedWords == null){
+			throw new IllegalArgumentException("sortedWords parameter cannot be null.");
+		}
+		Trie trie = new Trie();
+		addSorted(trie.mRoot, 0, sortedWords);
+		return trie;
+	}
+	
+	/*
+	 * Every word must be at least depth characters long and share its first depth characters, which lead to start.
+	 */
+	private static void addSorted(Node start, int depth, Iterable<String> sortedWords)
+	{
+		Node[] path = new Node[depth + 32];
+		path[depth] = start;
+		String previous = null;
+		for(String word : sortedWords)
+		{
+			if(word == null || word.length() <= 0 || word.length() < depth){
+				continue;
+			}
+			int common = depth;
+			if(previous != null){
+				if(word.compareTo(previous) < 0){
+					throw new IllegalArgumentException("Words are not sorted: \"" + word + "\" follows \"" + previous + "\".");
+				}
+				int max = Math.min(word.length(), previous.length());
+				while(common < max && word.charAt(common) == previous.charAt(common))
+				{
+					common++;
+				}
+			}
+			if(path.length <= word.length()){
+				path = Arrays.copyOf(path, Math.max(path.length * 2, word.length() + 1));
+			}
+			for(int pos = depth; pos < common; pos++)
+			{
+				path[pos].prefixes++;
+			}
+			for(int pos = common; pos < word.length(); pos++)
+			{
+				path[pos].prefixes++;
+				Node child = new Node();
+				path[pos].children.put(word.charAt(pos), child);
+				path[pos + 1] = child;
+			}
+			path[word.length()].words++;
+			previous = word;
 		}
-		Node child = root.children.get(k);
-		this.add(child, word, pos + 1);
 		return;
 	}
 	
+	/**
+	 * Builds a trie using the common fork-join pool.  Words are grouped by their first character, each group is built into
+	 * its own subtree by a separate task, and the subtrees are then attached to a shared root.  Groups which arrive in sorted
+	 * order are built with the same single-pass method as fromSorted.  Null and empty words are skipped.
+	 * @param words
+	 * @return Trie
+	 */
+	public static Trie parallelBuild(Collection<String> words)
+	{
+		if(words == null){
+			throw new IllegalArgumentException("words parameter cannot be null.");
+		}
+		HashMap<Character, ArrayList<String>> groups = new HashMap<Character, ArrayList<String>>();
+		for(String word : words)
+		{
+			if(word == null || word.length() <= 0){
+				continue;
+			}
+			ArrayList<String> group = groups.get(word.charAt(0));
+			if(group == null){
+				group = new ArrayList<String>();
+				groups.put(word.charAt(0), group);
+			}
+			group.add(word);
+		}
+		final ArrayList<BuildTask> tasks = new ArrayList<BuildTask>();
+		for(ArrayList<String> group : groups.values())
+		{
+			tasks.add(new BuildTask(group));
+		}
+		ForkJoinPool.commonPool().invoke(new RecursiveAction()
+		{
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute()
+			{
+				invokeAll(tasks);
+				return;
+			}
+		});
+		Trie trie = new Trie();
+		for(BuildTask task : tasks)
+		{
+			trie.mRoot.children.put(task.mWords.get(0).charAt(0), task.mNode);
+			trie.mRoot.prefixes += task.mWords.size();
+		}
+		return trie;
+	}
+	
+	private static class BuildTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private ArrayList<String> mWords = null;
+		private Node mNode = new Node();
+		
+		public BuildTask(ArrayList<String> words)
+		{
+			this.mWords = words;
+			return;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			boolean sorted = true;
+			for(int i = 1; i < this.mWords.size() && sorted; i++)
+			{
+				sorted = this.mWords.get(i - 1).compareTo(this.mWords.get(i)) <= 0;
+			}
+			if(sorted){
+				addSorted(this.mNode, 1, this.mWords);
+			}else{
+				for(String word : this.mWords)
+				{
+					add(this.mNode, word, 1);
+				}
+			}
+			return;
+		}
+	}
+	
+	/**
+	 * Removes one occurrence of word.  Nodes which no longer lead to any word are unlinked from the trie so their memory
+	 * can be reclaimed.  Removing a word which isn't present has no effect.
+	 * @param word
+	 */
 	public void remove(String word)
 	{
 		if(word == null || word.length() <= 0){
 			return;
 		}
-		this.remove(this.mRoot, word, 0);
+		if(!this.contains(word)){
+			return;
+		}
+		Node n = this.mRoot;
+		for(int pos = 0; pos < word.length(); pos++)
+		{
+			n.prefixes--;
+			char k = word.charAt(pos);
+			Node child = n.children.get(k);
+			/*
+			 * words + prefixes counts every word stored at or below a node.  If this word is the only one left, the whole
+			 * subtree belongs to it and can be dropped in one step.
+			 */
+			if(child.words + child.prefixes == 1){
+				n.children.remove(k);
+				this.mAutomaton = null;
+				return;
+			}
+			n = child;
+		}
+		n.words--;
+		this.mAutomaton = null;
 		return;
 	}
 	
-	private void remove(Node root, String word, int pos)
+	/**
+	 * Rebuilds the children map of every node at its current size.  HashMap tables never shrink on removal, so after heavy
+	 * churn most of a trie's memory can be sitting in oversized, mostly empty tables.  Runs in O(n) time over the nodes.
+	 */
+	public void compact()
 	{
-		pos = pos < 0 ? 0 : pos;
-		if(pos == word.length()){
-			root.words--;
-			return;
+		ArrayDeque<Node> stack = new ArrayDeque<Node>();
+		stack.push(this.mRoot);
+		while(!stack.isEmpty())
+		{
+			Node n = stack.pop();
+			n.children = n.children.isEmpty() ? new HashMap<Character, Node>(1) : new HashMap<Character, Node>(n.children);
+			for(Node child : n.children.values())
+			{
+				stack.push(child);
+			}
 		}
-		root.prefixes--;
-		char k = word.charAt(pos);
-		Node child = root.children.get(k);
-		this.remove(child, word, pos + 1);
 		return;
 	}
 	
@@ -172,10 +362,208 @@ public class Trie
 		return;
 	}
 	
-	private class Node
+	/**
+	 * Builds an Aho-Corasick automaton over the stored words, so that scan can report all of them found in a text in one
+	 * linear pass, regardless of how many words are stored.  Runs in O(n) time over the nodes.
+	 * 
+	 * The automaton is kept apart from the trie's nodes, which carry nothing for it, and is discarded as soon as a word is
+	 * added or removed.  scan calls this automatically when there is no current automaton, so calling it directly is only
+	 * needed to control when the cost is paid.
+	 */
+	public void compile()
+	{
+		ArrayDeque<Node> nodes = new ArrayDeque<Node>();
+		ArrayDeque<State> states = new ArrayDeque<State>();
+		State root = new State();
+		root.fail = root;
+		nodes.add(this.mRoot);
+		states.add(root);
+		// Breadth-first, so every failure target is shallower and already linked when a state is reached.
+		while(!nodes.isEmpty())
+		{
+			Node parent = nodes.poll();
+			State parentState = states.poll();
+			for(char k : parent.children.keySet())
+			{
+				Node child = parent.children.get(k);
+				State state = new State();
+				state.parent = parentState;
+				state.key = k;
+				state.depth = parentState.depth + 1;
+				state.word = child.words > 0;
+				parentState.children.put(k, state);
+				State f = root;
+				if(parentState != root){
+					f = parentState.fail;
+					while(f != root && !f.children.containsKey(k))
+					{
+						f = f.fail;
+					}
+					f = f.children.containsKey(k) ? f.children.get(k) : root;
+				}
+				state.fail = f;
+				state.output = f.word ? f : f.output;
+				nodes.add(child);
+				states.add(state);
+			}
+		}
+		this.mAutomaton = root;
+		return;
+	}
+	
+	/**
+	 * Finds every occurrence of every stored word in text, including overlapping ones.
+	 * @param text
+	 * @return ArrayList of matches, in order of their end positions.
+	 */
+	public ArrayList<Match> scan(CharSequence text)
+	{
+		final ArrayList<Match> results = new ArrayList<Match>();
+		this.scan(text, new MatchHandler()
+		{
+			@Override
+			public void onMatch(String word, long start)
+			{
+				results.add(new Match(word, start));
+				return;
+			}
+		});
+		return results;
+	}
+	
+	/**
+	 * Finds every occurrence of every stored word in text, passing each to handler as it is found.
+	 * @param text
+	 * @param handler
+	 */
+	public void scan(CharSequence text, MatchHandler handler)
+	{
+		if(text == null || handler == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(this.mAutomaton == null){
+			this.compile();
+		}
+		State state = this.mAutomaton;
+		for(int i = 0; i < text.length(); i++)
+		{
+			state = this.step(state, text.charAt(i), i, handler);
+		}
+		return;
+	}
+	
+	/**
+	 * Streaming form of scan.  Reads until the end of reader, reporting matches with their character offsets from the
+	 * point where reading started.  Does not close reader.
+	 * @param reader
+	 * @param handler
+	 * @throws IOException
+	 */
+	public void scan(Reader reader, MatchHandler handler) throws IOException
+	{
+		if(reader == null || handler == null){
+			throw new IllegalArgumentException("Arguments cannot be null.");
+		}
+		if(this.mAutomaton == null){
+			this.compile();
+		}
+		char[] buffer = new char[8192];
+		long offset = 0L;
+		State state = this.mAutomaton;
+		int count = 0;
+		while((count = reader.read(buffer)) != -1)
+		{
+			for(int i = 0; i < count; i++)
+			{
+				state = this.step(state, buffer[i], offset + i, handler);
+			}
+			offset += count;
+		}
+		return;
+	}
+	
+	private State step(State state, char k, long pos, MatchHandler handler)
+	{
+		State next = state.children.get(k);
+		while(next == null && state != this.mAutomaton)
+		{
+			state = state.fail;
+			next = state.children.get(k);
+		}
+		state = next == null ? this.mAutomaton : next;
+		for(State n = state.word ? state : state.output; n != null; n = n.output)
+		{
+			handler.onMatch(n.getWord(), pos - n.depth + 1);
+		}
+		return state;
+	}
+	
+	/**
+	 * Receives matches from scan.
+	 */
+	public interface MatchHandler
+	{
+		/**
+		 * @param word the stored word which was found.
+		 * @param start offset in the text of the first character of the match.
+		 */
+		public void onMatch(String word, long start);
+	}
+	
+	public static class Match
+	{
+		public String word = null;
+		public long start = 0L;
+		
+		public Match(String word, long start)
+		{
+			this.word = word;
+			this.start = start;
+			return;
+		}
+		
+		public long end()
+		{
+			return this.start + this.word.length();
+		}
+		
+		@Override
+		public String toString()
+		{
+			return this.word + "@" + this.start;
+		}
+	}
+	
+	private static class Node
 	{
 		public HashMap<Character, Node> children = new HashMap<Character, Node>();
 		public int words = 0;
 		public int prefixes = 0;
 	}
+	
+	/*
+	 * Aho-Corasick state, one for each node of the trie when compile ran.  fail is the state for the longest proper suffix of
+	 * this state's path, and output is the nearest state along the fail chain which ends a word.  Words aren't stored; they
+	 * are read back up the parent links when reported.
+	 */
+	private static class State
+	{
+		public HashMap<Character, State> children = new HashMap<Character, State>();
+		public State parent = null;
+		public char key = 0;
+		public int depth = 0;
+		public boolean word = false;
+		public State fail = null;
+		public State output = null;
+		
+		public String getWord()
+		{
+			char[] chars = new char[this.depth];
+			for(State s = this; s.depth > 0; s = s.parent)
+			{
+				chars[s.depth - 1] = s.key;
+			}
+			return new String(chars);
+		}
+	}
 }
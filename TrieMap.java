@@ -0,0 +1,338 @@
+package trie2;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Character-based trie that maps string keys to values.  Built on the same node structure as Trie, but each node can hold a
+ * value in place of a word count.
+ *
+ * Besides exact lookups, the trie answers longest-prefix queries in a single walk from the root, which makes it useful for
+ * routing tables (URL paths, IP prefixes written as bit strings, etc.) where a HashMap would need one probe per candidate prefix.
+ *
+ * Like Trie, this implementation is case-sensitive.  Null keys are not allowed, and putting a null value removes the key.
+ *
+ * @author John McCullock
+ * @version 1.0 2019-03-08
+ * @param <V>
+ */
+public class TrieMap<V>
+{
+	private Node<V> mRoot = new Node<V>();
+	private int mSize = 0;
+	
+	public void put(String key, V value)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		if(value == null){
+			this.remove(key);
+			return;
+		}
+		Node<V> n = this.mRoot;
+		for(int pos = 0; pos < key.length(); pos++)
+		{
+			char k = key.charAt(pos);
+			Node<V> child = n.children.get(k);
+			if(child == null){
+				child = new Node<V>();
+				n.children.put(k, child);
+			}
+			n = child;
+		}
+		if(n.value == null){
+			this.mSize++;
+		}
+		n.value = value;
+		return;
+	}
+	
+	public V get(String key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		Node<V> n = this.getNode(key);
+		return n == null ? null : n.value;
+	}
+	
+	public boolean containsKey(String key)
+	{
+		return this.get(key) != null;
+	}
+	
+	/**
+	 * Removes the key and unlinks any nodes left without a value or children.
+	 * @param key
+	 * @return the value previously mapped to key, or null if there was none.
+	 */
+	public V remove(String key)
+	{
+		if(key == null){
+			throw new IllegalArgumentException("key parameter cannot be null.");
+		}
+		/*
+		 * Remember the deepest node on the path which must survive (it has a value or another branch), along with the
+		 * character leading away from it.  Everything below that point exists only for this key.
+		 */
+		Node<V> n = this.mRoot;
+		Node<V> keep = this.mRoot;
+		char keepChar = key.length() > 0 ? key.charAt(0) : 0;
+		for(int pos = 0; pos < key.length(); pos++)
+		{
+			char k = key.charAt(pos);
+			Node<V> child = n.children.get(k);
+			if(child == null){
+				return null;
+			}
+			if(n.value != null || n.children.size() > 1){
+				keep = n;
+				keepChar = k;
+			}
+			n = child;
+		}
+		V old = n.value;
+		if(old == null){
+			return null;
+		}
+		n.value = null;
+		if(n.children.isEmpty() && n != this.mRoot){
+			keep.children.remove(keepChar);
+		}
+		this.mSize--;
+		return old;
+	}
+	
+	/**
+	 * Returns the longest key in this map which is a prefix of query, or null if no key matches.
+	 * @param query
+	 * @return String
+	 */
+	public String longestPrefixOf(String query)
+	{
+		if(query == null){
+			throw new IllegalArgumentException("query parameter cannot be null.");
+		}
+		int length = this.longestPrefixLength(query);
+		return length < 0 ? null : query.substring(0, length);
+	}
+	
+	/**
+	 * Returns the value of the longest key which is a prefix of query, or null if no key matches.  Unlike longestPrefixOf,
+	 * this does not allocate.
+	 * @param query
+	 * @return V
+	 */
+	public V longestPrefixValue(String query)
+	{
+		if(query == null){
+			throw new IllegalArgumentException("query parameter cannot be null.");
+		}
+		V result = this.mRoot.value;
+		Node<V> n = this.mRoot;
+		for(int pos = 0; pos < query.length(); pos++)
+		{
+			n = n.children.get(query.charAt(pos));
+			if(n == null){
+				break;
+			}
+			if(n.value != null){
+				result = n.value;
+			}
+		}
+		return result;
+	}
+	
+	private int longestPrefixLength(String query)
+	{
+		int length = this.mRoot.value != null ? 0 : -1;
+		Node<V> n = this.mRoot;
+		for(int pos = 0; pos < query.length(); pos++)
+		{
+			n = n.children.get(query.charAt(pos));
+			if(n == null){
+				break;
+			}
+			if(n.value != null){
+				length = pos + 1;
+			}
+		}
+		return length;
+	}
+	
+	/**
+	 * Lazily iterates over every key starting with prefix.  Keys are produced as the walk reaches them, so no intermediate
+	 * list is built.  Order is unspecified.  The trie must not be modified during iteration.
+	 * @param prefix
+	 * @return Iterable
+	 */
+	public Iterable<String> keysWithPrefix(final String prefix)
+	{
+		if(prefix == null){
+			throw new IllegalArgumentException("prefix parameter cannot be null.");
+		}
+		return new Iterable<String>()
+		{
+			@Override
+			public Iterator<String> iterator()
+			{
+				final PrefixIterator it = new PrefixIterator(prefix);
+				return new Iterator<String>()
+				{
+					@Override
+					public boolean hasNext()
+					{
+						return it.hasNext();
+					}
+					
+					@Override
+					public String next()
+					{
+						return it.nextFrame().key;
+					}
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Lazily iterates over every key/value pair whose key starts with prefix.  Order is unspecified.  The trie must not be
+	 * modified during iteration.
+	 * @param prefix
+	 * @return Iterable
+	 */
+	public Iterable<Map.Entry<String, V>> entriesWithPrefix(final String prefix)
+	{
+		if(prefix == null){
+			throw new IllegalArgumentException("prefix parameter cannot be null.");
+		}
+		return new Iterable<Map.Entry<String, V>>()
+		{
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator()
+			{
+				final PrefixIterator it = new PrefixIterator(prefix);
+				return new Iterator<Map.Entry<String, V>>()
+				{
+					@Override
+					public boolean hasNext()
+					{
+						return it.hasNext();
+					}
+					
+					@Override
+					public Map.Entry<String, V> next()
+					{
+						Frame<V> f = it.nextFrame();
+						return new AbstractMap.SimpleImmutableEntry<String, V>(f.key, f.node.value);
+					}
+				};
+			}
+		};
+	}
+	
+	public int size()
+	{
+		return this.mSize;
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.mSize == 0;
+	}
+	
+	public void clear()
+	{
+		this.mRoot = new Node<V>();
+		this.mSize = 0;
+		return;
+	}
+	
+	private Node<V> getNode(String key)
+	{
+		Node<V> n = this.mRoot;
+		for(int pos = 0; pos < key.length() && n != null; pos++)
+		{
+			n = n.children.get(key.charAt(pos));
+		}
+		return n;
+	}
+	
+	/*
+	 * Depth-first walk using an explicit stack, stopping at each node which holds a value.
+	 */
+	private class PrefixIterator
+	{
+		private ArrayDeque<Frame<V>> mStack = new ArrayDeque<Frame<V>>();
+		private Frame<V> mNext = null;
+		
+		public PrefixIterator(String prefix)
+		{
+			Node<V> start = getNode(prefix);
+			if(start != null){
+				this.mStack.push(new Frame<V>(start, prefix));
+			}
+			this.advance();
+			return;
+		}
+		
+		private void advance()
+		{
+			this.mNext = null;
+			while(!this.mStack.isEmpty())
+			{
+				Frame<V> f = this.mStack.pop();
+				for(Map.Entry<Character, Node<V>> e : f.node.children.entrySet())
+				{
+					this.mStack.push(new Frame<V>(e.getValue(), f.key + e.getKey()));
+				}
+				if(f.node.value != null){
+					this.mNext = f;
+					return;
+				}
+			}
+			return;
+		}
+		
+		public boolean hasNext()
+		{
+			return this.mNext != null;
+		}
+		
+		public Frame<V> nextFrame()
+		{
+			if(this.mNext == null){
+				throw new NoSuchElementException();
+			}
+			Frame<V> f = this.mNext;
+			this.advance();
+			return f;
+		}
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class Frame<V>
+	{
+		public Node<V> node = null;
+		public String key = null;
+		
+		public Frame(Node<V> node, String key)
+		{
+			this.node = node;
+			this.key = key;
+			return;
+		}
+	}
+	
+	@SuppressWarnings("hiding")
+	private static class Node<V>
+	{
+		public HashMap<Character, Node<V>> children = new HashMap<Character, Node<V>>();
+		public V value = null;
+	}
+}